@@ -11,20 +11,23 @@ repositories {
     mavenCentral()
 }
 
+// Annotation processor that generates the instruction registry from @Mnemonic handlers
+val processor: SourceSet by sourceSets.creating
+
 dependencies {
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
-    implementation("org.reflections:reflections:0.10.2")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     implementation("org.apache.logging.log4j:log4j-slf4j2-impl:2.20.0")
     implementation("org.jetbrains:annotations:26.0.1")
     annotationProcessor("org.jetbrains:annotations:26.0.1")
     compileOnly("org.projectlombok:lombok:1.18.30")
     annotationProcessor("org.projectlombok:lombok:1.18.30")
+    annotationProcessor(processor.output)
 }
 
-tasks.withType<JavaCompile> {
-    options.compilerArgs.add("--add-exports=java.base/jdk.internal.misc=ALL-UNNAMED")
-    options.compilerArgs.add("--add-opens=java.base/jdk.internal.misc=ALL-UNNAMED")
+tasks.test {
+    useJUnitPlatform()
 }
 
 application {
@@ -39,20 +42,11 @@ tasks.jar {
     }
 }
 
-tasks.withType<JavaExec> {
-    jvmArgs(
-        "--add-exports=java.base/jdk.internal.misc=ALL-UNNAMED",
-        "--add-opens=java.base/jdk.internal.misc=ALL-UNNAMED"
-    )
-}
-
 tasks.shadowJar {
     archiveClassifier.set("all")
     manifest {
         attributes(
-            "Main-Class" to "me.adversing.Main",
-            "Add-Exports" to "java.base/jdk.internal.misc",
-            "Add-Opens" to "java.base/jdk.internal.misc"
+            "Main-Class" to "me.adversing.Main"
         )
     }
 }
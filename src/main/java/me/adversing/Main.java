@@ -1,60 +1,186 @@
 package me.adversing;
 
-import me.adversing.asm.Parser;
+import me.adversing.asm.batch.BatchJob;
+import me.adversing.asm.batch.BatchRunner;
+import me.adversing.asm.batch.SummaryFormat;
 import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.diagnostic.exception.InvalidProgramStructureException;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.Instruction;
-import me.adversing.asm.variable.Variable;
+import me.adversing.asm.engine.ExecutionMode;
+import me.adversing.asm.engine.Machine;
+import me.adversing.asm.engine.ProgramOutput;
+import me.adversing.asm.engine.RunLimits;
+import me.adversing.asm.engine.RunResult;
+import me.adversing.asm.engine.SyscallContext;
+import org.apache.logging.log4j.LogManager;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
 
 public class Main {
     public static void main(String[] args) {
         boolean debug = hasDebugFlag(args);
+        boolean useCache = !hasNoCacheFlag(args);
+        ExecutionMode mode = parseExecutionMode(args);
+        RunLimits limits = new RunLimits(parseTimeout(args), parseInstructionLimit(args));
+        Path outputFile = parseOutputFile(args);
+
+        Path batch = parseBatch(args);
+        if (batch != null) {
+            runBatch(batch, new BatchRunner(mode, useCache, limits, parseJobs(args)), parseSummaryFormat(args));
+            return;
+        }
 
         DiagnosticService diagnosticService = new DiagnosticService();
-        Parser parser = new Parser(diagnosticService);
         String file = validateFile(args);
-        File asmFile = new File(file);
-
-        try (ASMEvaluator evaluator = new ASMEvaluator(diagnosticService, debug)) {
-            List<Instruction> instructions = parser.parseFile(asmFile);
-            Map<String, Variable> variables = parser.getVariables();
-
-            if (!diagnosticService.hasErrors()) {
-                CompletableFuture<Void> evaluationFuture = CompletableFuture.runAsync(() -> {
-                    evaluator.initializeVariables(variables);
-                    evaluator.evaluate(instructions);
-                });
-
-                try {
-                    evaluationFuture.get();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    diagnosticService.addError("Evaluation was interrupted.");
-                } catch (ExecutionException e) {
-                    diagnosticService.addError("An error occurred during evaluation: " + e.getCause());
-                }
-            } else {
+        int exitCode = 0;
+
+        try (ASMEvaluator evaluator = ASMEvaluator.create(diagnosticService, debug)) {
+            if (outputFile != null) {
+                evaluator.setSyscallContext(SyscallContext.standard(ProgramOutput.file(outputFile)));
+            }
+            Machine machine = Machine.load(Path.of(file), useCache).withExecutionMode(mode);
+
+            // Ctrl-C: stop the program at its next safepoint before the JVM goes away
+            CompletableFuture<Void> finished = new CompletableFuture<>();
+            Thread haltOnInterrupt = new Thread(() -> halt(evaluator, finished));
+            Runtime.getRuntime().addShutdownHook(haltOnInterrupt);
+
+            RunResult result;
+            try {
+                result = machine.run(evaluator, limits);
+            } finally {
+                finished.complete(null);
+                removeShutdownHook(haltOnInterrupt);
+            }
+
+            exitCode = result.exitCode();
+            if (!result.errors().isEmpty()) {
+                diagnosticService.clear();
+                result.errors().forEach(diagnosticService::addError);
+                result.warnings().forEach(diagnosticService::addWarning);
                 diagnosticService.report();
             }
         } catch (InvalidProgramStructureException | IOException e) {
             diagnosticService.addError("Failed to process file: " + e.getMessage());
             diagnosticService.report();
         }
+
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Runs every job of {@code batch} and streams the summary to standard output, one line per job.
+     */
+    private static void runBatch(Path batch, BatchRunner runner, SummaryFormat format) {
+        List<BatchJob> jobs;
+        try {
+            jobs = BatchJob.list(batch);
+        } catch (IOException e) {
+            DiagnosticService diagnosticService = new DiagnosticService().withLogger(LogManager.getLogger("diagnosticOutput"));
+            diagnosticService.addError("Failed to read batch " + batch + ": " + e.getMessage());
+            diagnosticService.report();
+            System.exit(1);
+            return;
+        }
+
+        String header = format.header();
+        if (header != null) {
+            System.out.println(header);
+        }
+        runner.run(jobs, result -> {
+            System.out.println(format.format(result));
+            System.out.flush();
+        });
     }
 
     private static boolean hasDebugFlag(String[] args) {
         return Arrays.stream(args).anyMatch(arg -> "--debug".equals(arg) || "-d".equals(arg));
     }
 
+    private static boolean hasNoCacheFlag(String[] args) {
+        return Arrays.stream(args).anyMatch("--no-cache"::equals);
+    }
+
+    private static ExecutionMode parseExecutionMode(String[] args) {
+        return Arrays.stream(args)
+                .filter(arg -> arg.startsWith("--mode="))
+                .map(arg -> ExecutionMode.fromString(arg.substring("--mode=".length())))
+                .findFirst()
+                .orElse(ExecutionMode.INTERPRETED);
+    }
+
+    private static long parseTimeout(String[] args) {
+        return Arrays.stream(args)
+                .filter(arg -> arg.startsWith("--timeout="))
+                .mapToLong(arg -> Long.parseLong(arg.substring("--timeout=".length())))
+                .findFirst()
+                .orElse(0);
+    }
+
+    private static long parseInstructionLimit(String[] args) {
+        return Arrays.stream(args)
+                .filter(arg -> arg.startsWith("--max-instructions="))
+                .mapToLong(arg -> Long.parseLong(arg.substring("--max-instructions=".length())))
+                .findFirst()
+                .orElse(Long.MAX_VALUE);
+    }
+
+    private static @Nullable Path parseBatch(String[] args) {
+        return Arrays.stream(args)
+                .filter(arg -> arg.startsWith("--batch="))
+                .map(arg -> Path.of(arg.substring("--batch=".length())))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static int parseJobs(String[] args) {
+        return Arrays.stream(args)
+                .filter(arg -> arg.startsWith("--jobs="))
+                .mapToInt(arg -> Integer.parseInt(arg.substring("--jobs=".length())))
+                .findFirst()
+                .orElse(Runtime.getRuntime().availableProcessors());
+    }
+
+    private static SummaryFormat parseSummaryFormat(String[] args) {
+        return Arrays.stream(args)
+                .filter(arg -> arg.startsWith("--summary="))
+                .map(arg -> SummaryFormat.fromString(arg.substring("--summary=".length())))
+                .findFirst()
+                .orElse(SummaryFormat.CSV);
+    }
+
+    private static @Nullable Path parseOutputFile(String[] args) {
+        return Arrays.stream(args)
+                .filter(arg -> arg.startsWith("--output="))
+                .map(arg -> Path.of(arg.substring("--output=".length())))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Stops the program and waits for the run to finish, so the evaluator's memory is not
+     * released while the program is still running.
+     */
+    private static void halt(ASMEvaluator evaluator, CompletableFuture<Void> finished) {
+        evaluator.requestHalt();
+        finished.join();
+    }
+
+    private static void removeShutdownHook(Thread hook) {
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // the JVM is already shutting down and the hook is running
+        }
+    }
+
     private static String validateFile(String[] args) {
         if (args == null || args.length == 0) {
             throw new IllegalArgumentException("No arguments provided.");
@@ -0,0 +1,367 @@
+package me.adversing.asm;
+
+import me.adversing.asm.instruction.Instruction;
+import me.adversing.asm.lexer.Lexer;
+import me.adversing.asm.lexer.TokenType;
+import me.adversing.asm.variable.Variable;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses one line-aligned chunk of a source file for the {@link Parser}.
+ * <p>
+ * A chunk only sees its own text, so everything that depends on other chunks is left to the
+ * parser's link pass: labels refer to instructions by their index within the chunk, and
+ * duplicate labels and variables, section structure and symbol resolution are checked there.
+ * Errors are collected rather than reported, tagged with their source offset, so the parser
+ * can report them in source order however the chunks were scheduled.
+ */
+final class ChunkParser {
+    private static final int MAX_ALIGN = 12; // .align 12 aligns to a page
+    record Label(String name, int index, int offset, int line, int column) {}
+
+    /**
+     * A variable, or an {@code .align} directive ({@code variable} is {@code null}) that sets the
+     * {@code alignment} of the next variable, which may be in a later chunk.
+     */
+    record Declaration(@Nullable Variable variable, int alignment, int offset, int line, int column) {}
+
+    /** A {@code .data} or {@code .text} directive, with its line relative to the chunk's first line. */
+    record SectionSwitch(boolean text, int offset, int line, int column) {}
+
+    record Error(int offset, String message) {
+        static Error at(int offset, int line, int column, String message) {
+            return new Error(offset, message + " (line " + line + ", column " + column + ")");
+        }
+    }
+
+    final List<Instruction> instructions = new ArrayList<>();
+    final List<Label> labels = new ArrayList<>();
+    final List<Declaration> declarations = new ArrayList<>();
+    final List<String> symbols = new ArrayList<>(); // in order of use
+    final List<Error> errors = new ArrayList<>();
+
+    private final Lexer lexer;
+    private boolean inTextSection;
+
+    ChunkParser(CharSequence source, int start, int end, int firstLine, boolean inTextSection) {
+        this.lexer = new Lexer(source, start, end, firstLine);
+        this.inTextSection = inTextSection;
+    }
+
+    /**
+     * Finds the section directives of a chunk without parsing it, so the parser can tell every
+     * chunk which section it starts in before parsing them in parallel.
+     *
+     * @param switches receives the chunk's section directives, in order
+     * @return the number of lines in the chunk
+     */
+    static int scanSections(CharSequence source, int start, int end, List<SectionSwitch> switches) {
+        Lexer lexer = new Lexer(source, start, end, 1);
+        while (lexer.next() != TokenType.EOF) {
+            if (lexer.is(TokenType.NEWLINE)) {
+                continue;
+            }
+            if (isSectionDirective(lexer)) {
+                switches.add(new SectionSwitch(lexer.textEquals(".text"), lexer.start(), lexer.line(), lexer.column()));
+            }
+            lexer.skipLine();
+        }
+        return lexer.line() - 1;
+    }
+
+    private static boolean isSectionDirective(Lexer lexer) {
+        return lexer.is(TokenType.DIRECTIVE) && (lexer.textEquals(".data") || lexer.textEquals(".text"));
+    }
+
+    ChunkParser parse() {
+        while (lexer.next() != TokenType.EOF) {
+            if (lexer.is(TokenType.NEWLINE)) {
+                continue;
+            }
+
+            if (isSectionDirective(lexer)) {
+                inTextSection = lexer.textEquals(".text");
+                if (!atEndOfLine(lexer.next())) {
+                    error("Unexpected " + describe() + " after section directive");
+                    skipLine();
+                }
+            } else if (inTextSection) {
+                processInstruction();
+            } else {
+                processDataDeclaration();
+            }
+        }
+        return this;
+    }
+
+    // ------------------------------------------------
+    // Data declarations
+    // ------------------------------------------------
+    private void processDataDeclaration() {
+        int offset = lexer.start();
+        int line = lexer.line();
+        int column = lexer.column();
+        if (lexer.is(TokenType.DIRECTIVE) && lexer.textEquals(".align")) {
+            processAlign(offset, line, column);
+            return;
+        }
+
+        String name = lexer.text();
+        if (lexer.next() == TokenType.COLON) {
+            lexer.next();
+        }
+        if (atEndOfLine(lexer.type())) {
+            return;
+        }
+
+        String type = lexer.text();
+        lexer.next();
+        int valueStart = lexer.start();
+        if (!Variable.isValidType(type)) {
+            skipLine();
+            errors.add(Error.at(offset, line, column, "Invalid data type: " + type + " for variable: " + name));
+            return;
+        }
+
+        // value (, value)*
+        Variable.Type varType = Variable.Type.fromString(type);
+        List<String> values = new ArrayList<>();
+        int valueEnd = valueStart;
+        boolean valid;
+        while (true) {
+            String value = atEndOfLine(lexer.type()) ? null : valueOf(varType);
+            if (value == null) {
+                valid = false;
+                break;
+            }
+            values.add(value);
+            valueEnd = lexer.end();
+            if (lexer.next() != TokenType.COMMA) {
+                valid = atEndOfLine(lexer.type());
+                break;
+            }
+            valueEnd = lexer.end();
+            lexer.next();
+        }
+
+        if (!valid || (varType == Variable.Type.SPACE && values.size() > 1)) {
+            String directive = varType == Variable.Type.ASCII || varType == Variable.Type.ASCIIZ ? ".ascii/.asciiz" : type;
+            errors.add(Error.at(offset, line, column, "Invalid value for " + directive + ": " + restOfLine(valueStart, valueEnd)));
+            return;
+        }
+
+        declarations.add(new Declaration(new Variable(name, varType, values), 0, offset, line, column));
+    }
+
+    /**
+     * Reads the current token as one value of a {@code varType} declaration, without advancing.
+     *
+     * @return integers normalized to decimal, decoded string contents or the literal,
+     *         or {@code null} if the token is not a valid value
+     */
+    private String valueOf(Variable.Type varType) {
+        return switch (varType) {
+            case WORD, HALF, BYTE, SPACE -> {
+                long value = lexer.is(TokenType.NUMBER) ? lexer.integerValue() : Long.MIN_VALUE;
+                yield value != Long.MIN_VALUE ? Long.toString(value) : null;
+            }
+            case FLOAT -> lexer.is(TokenType.NUMBER) && isDecimal(lexer.text()) ? lexer.text() : null;
+            case DOUBLE -> lexer.is(TokenType.NUMBER) ? lexer.text() : null;
+            case ASCII, ASCIIZ -> lexer.is(TokenType.STRING) ? lexer.stringValue() : null;
+        };
+    }
+
+    // .align n: the next declaration is aligned to 2^n bytes instead of its natural alignment
+    private void processAlign(int offset, int line, int column) {
+        lexer.next();
+        int valueStart = lexer.start();
+        long exponent = lexer.is(TokenType.NUMBER) ? lexer.integerValue() : Long.MIN_VALUE;
+        if (exponent < 0 || exponent > MAX_ALIGN || !atEndOfLine(lexer.next())) {
+            errors.add(Error.at(offset, line, column, "Invalid value for .align: " + restOfLine(valueStart, valueStart)
+                    + " (expected 0 to " + MAX_ALIGN + ")"));
+            return;
+        }
+        declarations.add(new Declaration(null, 1 << exponent, offset, line, column));
+    }
+
+    /**
+     * Skips to the end of the line.
+     *
+     * @param to the end of the tokens already consumed
+     * @return the source from {@code from} to the last token of the line
+     */
+    private String restOfLine(int from, int to) {
+        for (; !atEndOfLine(lexer.type()); lexer.next()) {
+            to = lexer.end();
+        }
+        return lexer.text(from, Math.max(from, to));
+    }
+
+    // -?\d+(\.\d+)?
+    private static boolean isDecimal(String value) {
+        int i = value.startsWith("-") ? 1 : 0;
+        int integerEnd = skipDigits(value, i);
+        if (integerEnd == i) {
+            return false;
+        }
+        if (integerEnd == value.length()) {
+            return true;
+        }
+        return value.charAt(integerEnd) == '.'
+                && skipDigits(value, integerEnd + 1) == value.length()
+                && value.length() > integerEnd + 1;
+    }
+
+    private static int skipDigits(String value, int from) {
+        while (from < value.length() && Character.isDigit(value.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    // ------------------------------------------------
+    // Instructions
+    // ------------------------------------------------
+    private void processInstruction() {
+        int line = lexer.line();
+        int column = lexer.column();
+        TokenType firstType = lexer.type();
+        int firstStart = lexer.start();
+        int firstEnd = lexer.end();
+
+        if (lexer.next() == TokenType.COLON) {
+            labels.add(new Label(lexer.text(firstStart, firstEnd), instructions.size(), firstStart, line, column));
+            if (atEndOfLine(lexer.next())) {
+                return; // just a label, no instruction
+            }
+            line = lexer.line();
+            column = lexer.column();
+            firstType = lexer.type();
+            firstStart = lexer.start();
+            firstEnd = lexer.end();
+            lexer.next();
+        }
+
+        if (firstType != TokenType.IDENTIFIER && firstType != TokenType.DIRECTIVE) {
+            errors.add(Error.at(firstStart, line, column,
+                    "Expected an instruction but found '" + lexer.text(firstStart, firstEnd) + "'"));
+            skipLine();
+            return;
+        }
+
+        String name = lexer.text(firstStart, firstEnd);
+        List<Operand> operands = new ArrayList<>();
+
+        while (!atEndOfLine(lexer.type())) {
+            int operandOffset = lexer.start();
+            int operandLine = lexer.line();
+            int operandColumn = lexer.column();
+            Operand operand = parseOperand();
+            if (operand == null) {
+                skipLine();
+                return;
+            }
+            operands.add(operand);
+            trackOperandUsage(operand, operandOffset, operandLine, operandColumn);
+
+            if (lexer.is(TokenType.COMMA)) {
+                lexer.next();
+            }
+        }
+
+        instructions.add(new Instruction(name, operands, line));
+    }
+
+    /**
+     * Parses one operand starting at the current token and leaves the lexer on the token after it.
+     *
+     * @return the operand, or {@code null} after recording a syntax error
+     */
+    private Operand parseOperand() {
+        int from = lexer.start();
+        switch (lexer.type()) {
+            case REGISTER -> {
+                String register = lexer.text();
+                lexer.next();
+                return Operand.register(register);
+            }
+            case NUMBER, IDENTIFIER -> {
+                long number = lexer.is(TokenType.NUMBER) ? lexer.integerValue() : Long.MIN_VALUE;
+                int to = lexer.end();
+                String text = lexer.text(from, to);
+                if (lexer.next() == TokenType.LEFT_PAREN) {
+                    return number != Long.MIN_VALUE
+                            ? parseMemoryOperand(from, (int) number, null)
+                            : parseMemoryOperand(from, 0, text);
+                }
+                return number != Long.MIN_VALUE ? Operand.immediate(text, (int) number) : Operand.symbol(text);
+            }
+            case LEFT_PAREN -> {
+                return parseMemoryOperand(from, 0, null);
+            }
+            default -> {
+                error("Unexpected " + describe() + " in operands");
+                return null;
+            }
+        }
+    }
+
+    // offset($base): the lexer is on the opening parenthesis
+    private Operand parseMemoryOperand(int from, int displacement, String symbol) {
+        if (lexer.next() != TokenType.REGISTER) {
+            error("Expected a base register but found " + describe());
+            return null;
+        }
+        String base = lexer.text();
+        if (lexer.next() != TokenType.RIGHT_PAREN) {
+            error("Expected ')' but found " + describe());
+            return null;
+        }
+        String value = lexer.text(from, lexer.end());
+        lexer.next();
+        return Operand.memory(value, base, displacement, symbol);
+    }
+
+    private void trackOperandUsage(Operand operand, int offset, int line, int column) {
+        switch (operand.kind()) {
+            case INVALID -> errors.add(Error.at(offset, line, column, "Invalid register: " + operand.value()));
+            case SYMBOL -> symbols.add(operand.symbol());
+            case MEMORY -> {
+                if (operand.symbol() != null) {
+                    symbols.add(operand.symbol());
+                }
+            }
+            default -> {
+                // registers and immediates were resolved when the operand was built
+            }
+        }
+    }
+
+    // ------------------------------------------------
+    // Token helpers
+    // ------------------------------------------------
+    private static boolean atEndOfLine(TokenType type) {
+        return type == TokenType.NEWLINE || type == TokenType.EOF;
+    }
+
+    private void skipLine() {
+        while (!atEndOfLine(lexer.type())) {
+            lexer.next();
+        }
+    }
+
+    private String describe() {
+        return switch (lexer.type()) {
+            case NEWLINE, EOF -> "end of line";
+            case ERROR -> lexer.text().startsWith("\"") ? "unterminated string" : "character '" + lexer.text() + "'";
+            default -> "'" + lexer.text() + "'";
+        };
+    }
+
+    private void error(String message) {
+        errors.add(Error.at(lexer.start(), lexer.line(), lexer.column(), message));
+    }
+}
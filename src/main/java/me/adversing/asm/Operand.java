@@ -1,3 +1,139 @@
 package me.adversing.asm;
 
-public record Operand(String value) {}
+import me.adversing.asm.engine.Registers;
+
+/**
+ * An instruction operand, classified and resolved once when the program is loaded.
+ * <p>
+ * Register operands carry their register-file index, immediates their numeric value
+ * and memory operands ({@code offset($base)}) both the base register index and the
+ * displacement, so handlers never have to look at {@link #value()} at run time.
+ *
+ * @param value     the operand as written in the source
+ * @param kind      what the operand refers to
+ * @param index     register index for register and memory operands, {@link Registers#NONE} otherwise
+ * @param immediate numeric value of an immediate, the displacement of a memory operand or the
+ *                  instruction index of a linked label
+ * @param symbol    label or variable name for symbolic operands (and symbolic displacements), otherwise {@code null}
+ */
+public record Operand(String value, Kind kind, int index, int immediate, String symbol) {
+
+    public static Operand of(String value) {
+        if (value.startsWith("$")) {
+            return register(value);
+        }
+
+        int openParen = value.indexOf('(');
+        if (openParen >= 0 && value.endsWith(")")) {
+            return memory(value, openParen);
+        }
+
+        Long number = parseNumber(value);
+        return number != null ? immediate(value, number.intValue()) : symbol(value);
+    }
+
+    public static Operand register(String value) {
+        int index = Registers.intIndex(value);
+        if (index != Registers.NONE) {
+            return new Operand(value, Kind.INT_REGISTER, index, 0, null);
+        }
+
+        index = Registers.fpIndex(value);
+        if (index != Registers.NONE) {
+            return new Operand(value, Kind.FP_REGISTER, index, 0, null);
+        }
+
+        index = Registers.cp0Index(value);
+        if (index != Registers.NONE) {
+            return new Operand(value, Kind.CP0_REGISTER, index, 0, null);
+        }
+        return new Operand(value, Kind.INVALID, Registers.NONE, 0, null);
+    }
+
+    public static Operand immediate(String value, int number) {
+        return new Operand(value, Kind.IMMEDIATE, Registers.NONE, number, null);
+    }
+
+    public static Operand symbol(String name) {
+        return new Operand(name, Kind.SYMBOL, Registers.NONE, 0, name);
+    }
+
+    /**
+     * @param value        the whole operand as written, e.g. {@code 8($sp)}
+     * @param base         the base register name
+     * @param displacement the numeric displacement, ignored when {@code symbol} is set
+     * @param symbol       the variable used as displacement, or {@code null}
+     */
+    public static Operand memory(String value, String base, int displacement, String symbol) {
+        int index = Registers.intIndex(base);
+        if (index == Registers.NONE) {
+            return new Operand(value, Kind.INVALID, Registers.NONE, 0, null);
+        }
+        return new Operand(value, Kind.MEMORY, index, symbol != null ? 0 : displacement, symbol);
+    }
+
+    private static Operand memory(String value, int openParen) {
+        String base = value.substring(openParen + 1, value.length() - 1).trim();
+        String displacement = value.substring(0, openParen).trim();
+        if (displacement.isEmpty()) {
+            return memory(value, base, 0, null);
+        }
+
+        Long number = parseNumber(displacement);
+        return number != null
+                ? memory(value, base, number.intValue(), null)
+                : memory(value, base, 0, displacement);
+    }
+
+    /**
+     * Parses a decimal or {@code 0x}-prefixed hexadecimal literal that fits in 32 bits
+     * (signed or unsigned).
+     *
+     * @return the parsed value, or {@code null} if {@code text} is not a numeric literal
+     */
+    private static Long parseNumber(String text) {
+        try {
+            boolean negative = text.startsWith("-");
+            String digits = negative || text.startsWith("+") ? text.substring(1) : text;
+            long number = digits.startsWith("0x") || digits.startsWith("0X")
+                    ? Long.parseLong(digits.substring(2), 16)
+                    : Long.parseLong(digits);
+            number = negative ? -number : number;
+            if (number < Integer.MIN_VALUE || number > 0xFFFFFFFFL) {
+                return null;
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return a {@link Kind#LABEL} operand pointing at instruction {@code target}
+     */
+    public Operand linkTo(int target) {
+        return new Operand(value, Kind.LABEL, Registers.NONE, target, symbol);
+    }
+
+    /**
+     * @return the instruction index a linked label operand refers to
+     */
+    public int target() {
+        return immediate;
+    }
+
+    public boolean is(Kind kind) {
+        return this.kind == kind;
+    }
+
+    public enum Kind {
+        INT_REGISTER,
+        FP_REGISTER,
+        CP0_REGISTER,
+        IMMEDIATE,
+        MEMORY,
+        SYMBOL,
+        LABEL,
+        INVALID
+    }
+}
@@ -10,12 +10,39 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.*;
-
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Parses MIPS assembly on top of the {@link me.adversing.asm.lexer.Lexer}.
+ * <p>
+ * The source is a sequence of line-terminated statements: a {@code .data}/{@code .text}
+ * section switch, a data declaration ({@code name: .type value}) or an optionally labelled
+ * instruction. Errors are reported with the line and column of the offending token, and the
+ * rest of its line is skipped.
+ * <p>
+ * On multi-core machines, sources of at least {@value #PARALLEL_THRESHOLD} characters are split
+ * into chunks at line boundaries and parsed by {@link ChunkParser}s on the common {@link ForkJoinPool}:
+ * <ol>
+ *     <li>every chunk is scanned for its section directives and line count, in parallel;</li>
+ *     <li>a sequential pass over those few results gives each chunk its first line number and
+ *     the section it starts in, and checks the section structure;</li>
+ *     <li>the chunks are parsed in parallel;</li>
+ *     <li>a sequential link pass concatenates the instructions, offsets each chunk's labels by
+ *     the number of instructions before it, merges the variables and resolves symbols.</li>
+ * </ol>
+ * Smaller sources take the same path as a single chunk on the calling thread. Either way,
+ * diagnostics are reported in source order, so the output does not depend on scheduling.
+ */
 @Getter
 public class Parser {
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int MIN_CHUNK_SIZE = 256 << 10;
+
     private final DiagnosticService diagnosticService;
-    private final Set<String> definedLabels = new HashSet<>();
-    private final Set<String> usedLabels = new HashSet<>();
+    private final Map<String, Integer> labels = new HashMap<>();
+    private final Set<String> usedLabels = new LinkedHashSet<>();
     private final Map<String, Variable> variables = new LinkedHashMap<>();
     private final Set<String> definedVariables = new HashSet<>();
     private final Set<String> usedVariables = new HashSet<>();
@@ -25,282 +52,149 @@ public class Parser {
     }
 
     public List<Instruction> parse(List<String> lines) {
-        List<Instruction> instructions = new ArrayList<>();
-
-        if (!validateSections(lines)) {
-            return instructions;
-        }
-
-        processInstructions(lines, instructions);
-        validateLabels(diagnosticService);
-
-        return instructions;
+        return parse(String.join("\n", lines));
     }
 
-    private boolean validateSections(List<String> lines) {
-        boolean hasData = false;
-        boolean hasText = false;
+    public List<Instruction> parse(CharSequence source) {
+        int[] bounds = split(source);
+        int chunkCount = bounds.length - 1;
+        List<ChunkParser.Error> errors = new ArrayList<>();
 
-        for (String line : lines) {
-            line = line.trim();
-            if (line.equals(".data")) {
-                if (hasData) {
-                    diagnosticService.addError("Duplicate .data section found.");
-                    return false;
-                }
-                hasData = true;
-            } else if (line.equals(".text")) {
-                if (hasText) {
-                    diagnosticService.addError("Duplicate .text section found.");
-                    return false;
-                }
-                hasText = true;
-            }
-        }
-
-        if (!(hasData && hasText)) {
-            diagnosticService.addError("Program must contain both .data and .text sections.");
-            return false;
+        // 1. Section directives and line count of every chunk
+        List<List<ChunkParser.SectionSwitch>> switches = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            switches.add(new ArrayList<>());
         }
+        int[] lineCounts = forEachChunk(chunkCount, i ->
+                ChunkParser.scanSections(source, bounds[i], bounds[i + 1], switches.get(i)))
+                .stream().mapToInt(Integer::intValue).toArray();
 
-        return true;
-    }
-
-    private void processInstructions(List<String> lines, List<Instruction> instructions) {
+        // 2. Where every chunk starts
+        int[] firstLines = new int[chunkCount];
+        boolean[] startsInText = new boolean[chunkCount];
+        boolean hasData = false;
+        boolean hasText = false;
         boolean inTextSection = false;
-
-        for (String line : lines) {
-            line = line.trim();
-            if (shouldSkipLine(line)) continue;
-
-            line = removeInlineComments(line);
-            switch (line) {
-                case "" -> {
-                    continue;
-                }
-                case ".data" -> {
-                    inTextSection = false;
-                    continue;
-                }
-                case ".text" -> {
-                    inTextSection = true;
-                    continue;
+        int line = 1;
+        for (int i = 0; i < chunkCount; i++) {
+            firstLines[i] = line;
+            startsInText[i] = inTextSection;
+            for (ChunkParser.SectionSwitch section : switches.get(i)) {
+                if (section.text() ? hasText : hasData) {
+                    errors.add(ChunkParser.Error.at(section.offset(), line + section.line() - 1, section.column(),
+                            "Duplicate " + (section.text() ? ".text" : ".data") + " section found."));
                 }
+                hasText |= section.text();
+                hasData |= !section.text();
+                inTextSection = section.text();
             }
-
-            if (!inTextSection) {
-                processDataDeclaration(line);
-            } else {
-                processInstruction(line, inTextSection, instructions);
-            }
-        }
-    }
-
-    private void processDataDeclaration(String line) {
-        String[] parts = line.split("\\s+", 3);
-        if (parts.length < 2) return;
-
-        String name = parts[0];
-        if (name.endsWith(":")) {
-            name = name.substring(0, name.length() - 1);
+            line += lineCounts[i];
         }
 
-        String type = parts[1];
-        String value = parts.length > 2 ? parts[2] : "";
+        // 3. Parse
+        List<ChunkParser> chunks = forEachChunk(chunkCount, i ->
+                new ChunkParser(source, bounds[i], bounds[i + 1], firstLines[i], startsInText[i]).parse());
 
-        if (!Variable.isValidType(type)) {
-            diagnosticService.addError("Invalid data type: " + type + " for variable: " + name);
-            return;
-        }
+        // 4. Link
+        List<Instruction> instructions = link(chunks, errors);
 
-        if (variables.containsKey(name)) {
-            diagnosticService.addError("Duplicate variable declaration: " + name);
-            return;
+        errors.sort(Comparator.comparingInt(ChunkParser.Error::offset));
+        for (ChunkParser.Error error : errors) {
+            diagnosticService.addError(error.message());
         }
-
-        Variable.Type varType = Variable.Type.fromString(type);
-        if (varType == Variable.Type.WORD && !value.matches("-?\\d+")) {
-            diagnosticService.addError("Invalid value for .word: " + value);
-            return;
-        } else if (varType == Variable.Type.FLOAT && !value.matches("-?\\d+(\\.\\d+)?")) {
-            diagnosticService.addError("Invalid value for .float: " + value);
-            return;
-        } else if ((varType == Variable.Type.ASCII || varType == Variable.Type.ASCIIZ) && !value.matches("\".*\"")) {
-            diagnosticService.addError("Invalid value for .ascii/.asciiz: " + value);
-            return;
+        if (!(hasData && hasText)) {
+            diagnosticService.addError("Program must contain both .data and .text sections.");
         }
+        validateLabels(diagnosticService);
 
-        variables.put(name, new Variable(name, varType, value));
-        definedVariables.add(name);
-    }
-
-    private boolean shouldSkipLine(String line) {
-        return line.isEmpty() || line.startsWith("#");
+        return instructions;
     }
-    
-    private String removeInlineComments(String line) {
-        boolean inString = false;
-        boolean escaped = false;
-
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-
-            if (escaped) {
-                escaped = false;
-                continue;
-            }
 
-            if (c == '\\' && inString) {
-                escaped = true;
-                continue;
+    /**
+     * @return chunk boundaries: chunk {@code i} is {@code source[bounds[i], bounds[i + 1])}
+     */
+    private static int[] split(CharSequence source) {
+        int length = source.length();
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (length < PARALLEL_THRESHOLD || processors < 2) {
+            return new int[]{0, length};
+        }
+
+        int chunkCount = Math.min(length / MIN_CHUNK_SIZE, 4 * processors);
+        int chunkSize = length / Math.max(chunkCount, 1);
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        for (int target = chunkSize; target < length; ) {
+            int boundary = target;
+            while (boundary < length && source.charAt(boundary - 1) != '\n') {
+                boundary++;
             }
-
-            if (c == '"') {
-                inString = !inString;
-                continue;
-            }
-
-            if (!inString) {
-                if (c == '#') {
-                    return line.substring(0, i).trim();
-                }
+            if (boundary < length) {
+                bounds.add(boundary);
             }
+            target = boundary + chunkSize;
         }
+        bounds.add(length);
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
 
-        return line;
+    /**
+     * @return {@code task} applied to every chunk index, in chunk order; run in parallel when there are several chunks
+     */
+    private static <T> List<T> forEachChunk(int chunkCount, IntFunction<T> task) {
+        IntStream indices = IntStream.range(0, chunkCount);
+        return (chunkCount > 1 ? indices.parallel() : indices).mapToObj(task).toList();
     }
-    
-    private List<String> parseInstructionLine(String line) {
-        List<String> parts = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-        boolean inParentheses = false;
 
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
+    private List<Instruction> link(List<ChunkParser> chunks, List<ChunkParser.Error> errors) {
+        List<Instruction> instructions = new ArrayList<>(chunks.stream().mapToInt(chunk -> chunk.instructions.size()).sum());
 
-            if (c == '(') {
-                inParentheses = true;
-                current.append(c);
-            } else if (c == ')') {
-                inParentheses = false;
-                current.append(c);
-            } else if (c == ',' && !inParentheses) {
-                if (!current.isEmpty()) {
-                    parts.add(current.toString().trim());
-                    current.setLength(0);
+        int alignment = 0; // set by an .align waiting for the next variable
+        for (ChunkParser chunk : chunks) {
+            for (ChunkParser.Label label : chunk.labels) {
+                if (labels.putIfAbsent(label.name(), instructions.size() + label.index()) != null) {
+                    errors.add(ChunkParser.Error.at(label.offset(), label.line(), label.column(),
+                            "Duplicate label defined: " + label.name()));
                 }
-            } else if (Character.isWhitespace(c) && !inParentheses) {
-                if (!current.isEmpty()) {
-                    parts.add(current.toString().trim());
-                    current.setLength(0);
-                }
-            } else {
-                current.append(c);
             }
-        }
-
-        if (!current.isEmpty()) {
-            parts.add(current.toString().trim());
-        }
-
-        return parts;
-    }
-
-    private void processInstruction(String line, boolean inTextSection, List<Instruction> instructions) {
-        if (line.contains(":")) {
-            String[] labelParts = line.split(":", 2);
-            String labelName = labelParts[0].trim();
-            if (!labelName.isEmpty()) {
-                processLabel(labelName + ":");
-            }
-            if (labelParts.length > 1) {
-                line = labelParts[1].trim();
-                if (line.isEmpty()) {
-                    return; // just a label, no instruction
+            for (ChunkParser.Declaration declaration : chunk.declarations) {
+                if (declaration.variable() == null) {
+                    alignment = declaration.alignment();
+                    continue;
+                }
+                Variable variable = alignment != 0 ? declaration.variable().withAlignment(alignment) : declaration.variable();
+                alignment = 0;
+                if (variables.putIfAbsent(variable.name(), variable) != null) {
+                    errors.add(ChunkParser.Error.at(declaration.offset(), declaration.line(), declaration.column(),
+                            "Duplicate variable declaration: " + variable.name()));
+                } else {
+                    definedVariables.add(variable.name());
                 }
-            } else {
-                return; // just a label again
             }
+            instructions.addAll(chunk.instructions);
+            errors.addAll(chunk.errors);
         }
 
-        if (!inTextSection) {
-            diagnosticService.addError("Instructions must be in .text section.");
-            return;
-        }
-
-        List<String> parts = parseInstructionLine(line);
-        if (parts.isEmpty()) return;
-
-        String name = parts.getFirst();
-        List<Operand> operands = new ArrayList<>();
-
-        for (int i = 1; i < parts.size(); i++) {
-            String operand = parts.get(i).trim();
-            if (!operand.isEmpty()) {
-                operands.add(new Operand(operand));
-                trackOperandUsage(operand);
+        // symbols are resolved once every variable is known
+        for (ChunkParser chunk : chunks) {
+            for (String symbol : chunk.symbols) {
+                trackSymbol(symbol);
             }
         }
-
-        instructions.add(new Instruction(name, operands));
-    }
-
-    private void processLabel(String name) {
-        String label = name.substring(0, name.length() - 1);
-        if (!definedLabels.add(label)) {
-            diagnosticService.addError("Duplicate label defined: " + label);
-        }
+        return instructions;
     }
 
-
-
-    private void trackOperandUsage(String operand) {
-        if (operand.contains("(") && operand.contains(")")) {
-            int openParen = operand.indexOf('(');
-            int closeParen = operand.indexOf(')');
-            if (openParen < closeParen) {
-                String register = operand.substring(openParen + 1, closeParen);
-                if (register.startsWith("$")) {
-                    validateRegister(register);
-                }
-
-                if (openParen > 0) {
-                    String offset = operand.substring(0, openParen);
-                    try {
-                        Integer.parseInt(offset);
-                    } catch (NumberFormatException e) {
-                        if (definedVariables.contains(offset)) {
-                            usedVariables.add(offset);
-                        } else {
-                            usedLabels.add(offset);
-                        }
-                    }
-                }
-            }
-        } else if (operand.startsWith("$")) {
-            validateRegister(operand);
+    private void trackSymbol(String symbol) {
+        if (definedVariables.contains(symbol)) {
+            usedVariables.add(symbol);
         } else {
-            try {
-                Integer.parseInt(operand);
-            } catch (NumberFormatException e) {
-                if (definedVariables.contains(operand)) {
-                    usedVariables.add(operand);
-                } else {
-                    usedLabels.add(operand);
-                }
-            }
-        }
-    }
-
-    private void validateRegister(String register) {
-        if (!register.matches("\\$([tsvak]\\d+|zero|ra|sp|fp|gp|hi|lo|f\\d+|cp0_\\d+)")) {
-            diagnosticService.addError("Invalid register: " + register);
+            usedLabels.add(symbol);
         }
     }
 
     private void validateLabels(DiagnosticService diagnosticService) {
         for (String label : usedLabels) {
-            if (!definedLabels.contains(label)) {
+            if (!labels.containsKey(label)) {
                 diagnosticService.addError("Undefined label: " + label);
             }
         }
@@ -312,11 +206,11 @@ public class Parser {
             throw new InvalidProgramStructureException("File must have .asm extension.");
         }
 
-        List<String> lines = Files.readAllLines(file.toPath());
-        if (lines.isEmpty()) {
+        String source = Files.readString(file.toPath());
+        if (source.isEmpty()) {
             throw new InvalidProgramStructureException("File is empty or unreadable.");
         }
 
-        return parse(lines);
+        return parse(source);
     }
 }
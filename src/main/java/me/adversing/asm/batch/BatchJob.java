@@ -0,0 +1,118 @@
+package me.adversing.asm.batch;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One run in a batch: a program and the file its input syscalls read.
+ *
+ * @param input the program's standard input, or {@code null} to run it with empty input
+ */
+public record BatchJob(Path program, @Nullable Path input) {
+
+    /**
+     * Lists the jobs of a batch, which is either a directory or a manifest file.
+     * <p>
+     * In a directory every {@code name.asm} is a program. Its input cases are the files
+     * {@code name.in} and {@code name.<case>.in} next to it, one job each; a program without
+     * input files runs once with empty input. Names are matched literally, and an input belongs
+     * to the program with the longest matching name: with both {@code sort.asm} and
+     * {@code sort.v2.asm}, {@code sort.v2.in} is an input of the latter only.
+     * <p>
+     * A manifest has one job per line: a program path optionally followed by an input path,
+     * both relative to the manifest's directory. Blank lines and lines starting with
+     * {@code #} are skipped.
+     */
+    public static List<BatchJob> list(Path batch) throws IOException {
+        return Files.isDirectory(batch) ? fromDirectory(batch) : fromManifest(batch);
+    }
+
+    private static List<BatchJob> fromDirectory(Path directory) throws IOException {
+        List<String> files = sortedFileNames(directory);
+        Set<String> names = new HashSet<>(files);
+        List<BatchJob> jobs = new ArrayList<>();
+        for (String name : files) {
+            if (!name.endsWith(".asm")) {
+                continue;
+            }
+            Path program = directory.resolve(name);
+            String stem = name.substring(0, name.length() - ".asm".length());
+
+            int before = jobs.size();
+            for (String file : files) {
+                if (isInputOf(stem, file, names)) {
+                    jobs.add(new BatchJob(program, directory.resolve(file)));
+                }
+            }
+            if (jobs.size() == before) {
+                jobs.add(new BatchJob(program, null));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * @return whether {@code file} is an input case of {@code stem.asm}, i.e. {@code stem.in} or
+     * {@code stem.<case>.in} where no longer program name in {@code names} matches it
+     */
+    private static boolean isInputOf(String stem, String file, Set<String> names) {
+        if (file.equals(stem + ".in")) {
+            return true;
+        }
+        String prefix = stem + ".";
+        if (!file.startsWith(prefix) || !file.endsWith(".in") || file.length() < prefix.length() + ".in".length()) {
+            return false;
+        }
+
+        String inputCase = file.substring(prefix.length(), file.length() - ".in".length());
+        int end = -1;
+        do {
+            end = inputCase.indexOf('.', end + 1);
+            if (names.contains(prefix + (end < 0 ? inputCase : inputCase.substring(0, end)) + ".asm")) {
+                return false; // it belongs to that program
+            }
+        } while (end >= 0);
+        return true;
+    }
+
+    private static List<BatchJob> fromManifest(Path manifest) throws IOException {
+        Path base = manifest.toAbsolutePath().getParent();
+        List<BatchJob> jobs = new ArrayList<>();
+        List<String> lines = Files.readAllLines(manifest);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split("\\s+");
+            if (fields.length > 2) {
+                throw new IOException("Invalid manifest entry at line " + (i + 1) + ": " + line);
+            }
+            Path input = fields.length == 2 ? base.resolve(fields[1]) : null;
+            jobs.add(new BatchJob(base.resolve(fields[0]), input));
+        }
+        return jobs;
+    }
+
+    private static List<String> sortedFileNames(Path directory) throws IOException {
+        List<String> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file.getFileName().toString());
+                }
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+}
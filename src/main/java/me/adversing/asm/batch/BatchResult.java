@@ -0,0 +1,12 @@
+package me.adversing.asm.batch;
+
+import me.adversing.asm.engine.RunResult;
+
+/**
+ * The outcome of one {@link BatchJob}.
+ *
+ * @param outputHash SHA-256 of everything the program printed, in lowercase hex; empty if the
+ *                   program never ran
+ */
+public record BatchResult(BatchJob job, RunResult run, String outputHash) {
+}
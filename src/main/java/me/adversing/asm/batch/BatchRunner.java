@@ -0,0 +1,152 @@
+package me.adversing.asm.batch;
+
+import me.adversing.asm.diagnostic.exception.InvalidProgramStructureException;
+import me.adversing.asm.engine.ASMEvaluator;
+import me.adversing.asm.engine.EvaluatorPool;
+import me.adversing.asm.engine.ExecutionMode;
+import me.adversing.asm.engine.Machine;
+import me.adversing.asm.engine.ProgramOutput;
+import me.adversing.asm.engine.RunLimits;
+import me.adversing.asm.engine.RunResult;
+import me.adversing.asm.engine.SyscallContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Runs many {@link BatchJob}s concurrently inside one JVM, so they share its warmed-up JIT
+ * and the assembled programs.
+ * <p>
+ * Every job runs on its own virtual thread, and at most {@code parallelism} of them execute
+ * a program at a time. Jobs take their evaluator from an {@link EvaluatorPool} and give each
+ * run its own {@link SyscallContext}: the input file as standard input, and an output channel
+ * that only hashes what the program prints. The pool creates evaluators on a
+ * {@link SyscallContext#discard() discarding} context, so no job ever touches the process's
+ * standard streams. Each program is loaded as a {@link Machine} once, by the first job that
+ * needs it, and shared by all its input cases; each case starts from the machine's loaded
+ * snapshot instead of installing the data segment again.
+ * <p>
+ * The {@link RunLimits} apply to each job separately. A job that hits one is halted at its next
+ * safepoint and reported as {@link RunResult.Status#TIMEOUT} or {@link RunResult.Status#LIMIT};
+ * the other jobs are not affected.
+ */
+public final class BatchRunner {
+    private final ExecutionMode mode;
+    private final boolean useCache;
+    private final RunLimits limits;
+    private final int parallelism;
+
+    private final Map<Path, CompletableFuture<Machine>> machines = new ConcurrentHashMap<>();
+
+    /**
+     * @param parallelism how many programs may run at the same time
+     */
+    public BatchRunner(ExecutionMode mode, boolean useCache, RunLimits limits, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+        }
+        this.mode = mode;
+        this.useCache = useCache;
+        this.limits = limits;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Runs {@code jobs} and returns once all of them have finished. Results are passed to
+     * {@code results} as jobs finish, one at a time.
+     */
+    public void run(List<BatchJob> jobs, Consumer<BatchResult> results) {
+        Semaphore running = new Semaphore(parallelism);
+        Object resultLock = new Object();
+
+        // closed in reverse order: all jobs have finished before the pool goes away
+        try (EvaluatorPool pool = new EvaluatorPool(parallelism, SyscallContext::discard, false);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (BatchJob job : jobs) {
+                executor.submit(() -> {
+                    BatchResult result;
+                    running.acquireUninterruptibly();
+                    try {
+                        result = run(job, pool);
+                    } finally {
+                        running.release();
+                    }
+                    synchronized (resultLock) {
+                        results.accept(result);
+                    }
+                });
+            }
+        }
+    }
+
+    private BatchResult run(BatchJob job, EvaluatorPool pool) {
+        Machine machine;
+        try {
+            machine = machine(job.program());
+        } catch (CompletionException e) {
+            return failed(job, "Failed to process file: " + e.getCause().getMessage());
+        }
+
+        MessageDigest digest = sha256();
+        ProgramOutput output = new ProgramOutput(new DigestOutputStream(OutputStream.nullOutputStream(), digest), false);
+        ASMEvaluator evaluator = pool.acquire();
+        try (Reader input = job.input() != null ? Files.newBufferedReader(job.input()) : Reader.nullReader()) {
+            evaluator.setSyscallContext(new SyscallContext(input, output));
+            RunResult run = machine.run(evaluator, limits);
+            return new BatchResult(job, run, machine.isRunnable() ? HexFormat.of().formatHex(digest.digest()) : "");
+        } catch (IOException e) {
+            return failed(job, "Failed to read input: " + e.getMessage());
+        } finally {
+            pool.release(evaluator);
+        }
+    }
+
+    /**
+     * Loads {@code program} on the first call and waits for that machine on later ones.
+     *
+     * @throws CompletionException if the program could not be loaded
+     */
+    private Machine machine(Path program) {
+        CompletableFuture<Machine> machine = new CompletableFuture<>();
+        CompletableFuture<Machine> existing = machines.putIfAbsent(program, machine);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        try {
+            machine.complete(Machine.load(program, useCache).withExecutionMode(mode));
+        } catch (InvalidProgramStructureException | IOException | RuntimeException e) {
+            machine.completeExceptionally(e);
+        }
+        return machine.join();
+    }
+
+    private static BatchResult failed(BatchJob job, String error) {
+        RunResult run = new RunResult(RunResult.Status.ERROR, 0, new byte[0], 0, 0, List.of(error), List.of());
+        return new BatchResult(job, run, "");
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package me.adversing.asm.batch;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * How the batch summary is written: one line per {@link BatchResult}, in the order the jobs finish.
+ */
+public enum SummaryFormat {
+    /**
+     * Comma-separated values with a header line.
+     */
+    CSV {
+        @Override
+        public @Nullable String header() {
+            return "program,input,status,exit_code,output_sha256,instructions,wall_ms,message";
+        }
+
+        @Override
+        public String format(BatchResult result) {
+            return String.join(",",
+                    csv(result.job().program().toString()),
+                    csv(inputName(result)),
+                    status(result),
+                    Integer.toString(result.run().exitCode()),
+                    result.outputHash(),
+                    Long.toString(result.run().retiredInstructions()),
+                    wallMillis(result),
+                    csv(result.run().firstError() != null ? result.run().firstError() : ""));
+        }
+    },
+
+    /**
+     * JSON Lines: one self-contained object per line.
+     */
+    JSON {
+        @Override
+        public @Nullable String header() {
+            return null;
+        }
+
+        @Override
+        public String format(BatchResult result) {
+            return "{\"program\":" + json(result.job().program().toString()) +
+                   ",\"input\":" + (result.job().input() != null ? json(inputName(result)) : "null") +
+                   ",\"status\":\"" + status(result) + "\"" +
+                   ",\"exitCode\":" + result.run().exitCode() +
+                   ",\"outputSha256\":\"" + result.outputHash() + "\"" +
+                   ",\"instructions\":" + result.run().retiredInstructions() +
+                   ",\"wallMs\":" + wallMillis(result) +
+                   ",\"message\":" + (result.run().firstError() != null ? json(result.run().firstError()) : "null") +
+                   "}";
+        }
+    };
+
+    /**
+     * @return the line written before the first result, or {@code null} if there is none
+     */
+    public abstract @Nullable String header();
+
+    public abstract String format(BatchResult result);
+
+    public static SummaryFormat fromString(String format) {
+        return Arrays.stream(SummaryFormat.values())
+                .filter(f -> f.name().equalsIgnoreCase(format))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Invalid summary format: " + format));
+    }
+
+    private static String inputName(BatchResult result) {
+        Path input = result.job().input();
+        return input != null ? input.toString() : "";
+    }
+
+    private static String status(BatchResult result) {
+        return result.run().status().name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String wallMillis(BatchResult result) {
+        return String.format(Locale.ROOT, "%.3f", result.run().wallNanos() / 1e6);
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
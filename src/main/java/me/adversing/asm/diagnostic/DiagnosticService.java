@@ -37,6 +37,11 @@ public class DiagnosticService {
         logger.info("=====================\n");
     }
 
+    public void clear() {
+        errors.clear();
+        warnings.clear();
+    }
+
     public boolean hasErrors() {
         return !errors.isEmpty();
     }
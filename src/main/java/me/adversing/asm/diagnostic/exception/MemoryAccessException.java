@@ -0,0 +1,46 @@
+package me.adversing.asm.diagnostic.exception;
+
+import lombok.Getter;
+
+/**
+ * MIPS address error: a load or store to a misaligned address or outside user space.
+ * <p>
+ * Raised by {@link me.adversing.asm.engine.Memory} before the access is performed, so a
+ * faulting store never modifies memory.
+ */
+@Getter
+public class MemoryAccessException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public static final int ADDRESS_ERROR_LOAD  = 4;  // AdEL
+    public static final int ADDRESS_ERROR_STORE = 5;  // AdES
+
+    private final int address;
+    private final boolean store;
+    // index of the faulting instruction when the node that ran it spans several instructions, -1 otherwise
+    private int instruction = -1;
+
+    public MemoryAccessException(int address, int size, boolean store) {
+        super(String.format("Address error on %s of %d byte(s) at 0x%08x", store ? "store" : "load", size, address));
+        this.address = address;
+        this.store = store;
+    }
+
+    /**
+     * Attributes the fault to the instruction at {@code index}, for nodes that run several
+     * instructions under the index of the first one (fused pairs, compiled blocks).
+     *
+     * @return this exception, to be rethrown
+     */
+    public MemoryAccessException atInstruction(int index) {
+        this.instruction = index;
+        return this;
+    }
+
+    /**
+     * @return the MIPS exception code, as written to the ExcCode field of the Cause register
+     */
+    public int exceptionCode() {
+        return store ? ADDRESS_ERROR_STORE : ADDRESS_ERROR_LOAD;
+    }
+}
@@ -1,21 +1,27 @@
 package me.adversing.asm.engine;
 
-import jdk.internal.misc.Unsafe;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import me.adversing.asm.Operand;
 import me.adversing.asm.diagnostic.DiagnosticService;
+import me.adversing.asm.diagnostic.exception.InvalidProgramStructureException;
+import me.adversing.asm.diagnostic.exception.MemoryAccessException;
 import me.adversing.asm.instruction.Instruction;
-import me.adversing.asm.instruction.factory.InstructionFactory;
 import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.jit.TieredCompiler;
+import me.adversing.asm.program.CompiledProgram;
+import me.adversing.asm.program.DataSegment;
+import me.adversing.asm.program.DecodedInstruction;
+import me.adversing.asm.program.DecodedProgram;
+import me.adversing.asm.program.ProgramDecoder;
+import me.adversing.asm.program.ProgramVerifier;
 import me.adversing.asm.variable.Variable;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.invoke.MethodHandles;
-import java.nio.ByteOrder;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -24,68 +30,35 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 @Getter
 public class ASMEvaluator implements AutoCloseable {
-    // ------------------------------------------------
-    // Unsafe singleton accessor
-    // ------------------------------------------------
-    private static final Unsafe UNSAFE;
-
-    // ------------------------------------------------
-    // MIPS Endianness Configuration
-    // ------------------------------------------------
-    private static final ByteOrder MIPS_BYTE_ORDER = ByteOrder.BIG_ENDIAN;
-    private static final ByteOrder HOST_BYTE_ORDER = ByteOrder.nativeOrder();
-    private static final boolean NEEDS_BYTE_SWAP = !MIPS_BYTE_ORDER.equals(HOST_BYTE_ORDER);
-
-    static {
-        try {
-            UNSAFE = (Unsafe) MethodHandles.privateLookupIn(Unsafe.class, MethodHandles.lookup())
-                    .findStaticVarHandle(Unsafe.class, "theUnsafe", Unsafe.class)
-                    .get();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to obtain Unsafe instance", e);
-        }
-    }
-
     // ------------------------------------------------
     // Configuration constants
     // ------------------------------------------------
-    private static final int NUM_INT_REGISTERS   = 64;    // $t0..$t31 + $v0..$v31, etc.
-    private static final int NUM_FP_REGISTERS    = 32;
-    private static final int NUM_CP0_REGISTERS   = 32;
-
-    private static final int SIZEOF_INT    = Integer.BYTES;     // 4 bytes
-    private static final int SIZEOF_DOUBLE = Double.BYTES;      // 8 bytes
-    private static final int SIZEOF_LONG   = Long.BYTES;        // 8 bytes
-    private static final int SIZEOF_FLOAT  = Float.BYTES;       // 4 bytes
-    private static final int SIZEOF_SHORT  = Short.BYTES;       // 2 bytes
-    private static final int SIZEOF_BYTE   = Byte.BYTES;        // 1 byte
-
-    private static final long INT_REGISTER_REGION_SIZE  = (long) NUM_INT_REGISTERS * SIZEOF_INT;
-    private static final long FP_REGISTER_REGION_SIZE   = (long) NUM_FP_REGISTERS * SIZEOF_DOUBLE;
-    private static final long CP0_REGISTER_REGION_SIZE  = (long) NUM_CP0_REGISTERS * SIZEOF_INT;
-    private static final long MAIN_MEMORY_SIZE          = 4096 * 4096; // 4 MB
+    private static final int NUM_INT_REGISTERS   = Registers.INT_REGISTER_COUNT;
+    private static final int NUM_FP_REGISTERS    = Registers.FP_REGISTER_COUNT;
+    private static final int NUM_CP0_REGISTERS   = Registers.CP0_REGISTER_COUNT;
 
-    // ------------------------------------------------
-    // Off-heap memory addresses
-    // ------------------------------------------------
-    private final long intRegisterBase;   // base address of integer registers
-    private final long fpRegisterBase;    // base address of floating-point registers
-    private final long cp0RegisterBase;   // base address of CP0 registers
-    private final long memoryBase;        // base address of main memory
+    // Halt polling: program counter that ends the execution loops, and how many
+    // dispatches may run between two reads of the halt flag
+    private static final int HALTED             = -1;
+    private static final int SAFEPOINT_INTERVAL = 1024;
 
     // ------------------------------------------------
-    // Metadata for register name -> offset
+    // Machine state
     // ------------------------------------------------
-    private final Map<String, Long> intRegisterOffsets = new HashMap<>();
-    private final Map<String, Long> fpRegisterOffsets  = new HashMap<>();
-    private final Map<String, Long> cp0RegisterOffsets = new HashMap<>();
+    // Main memory: the sparse 32-bit address space
+    @Getter(AccessLevel.NONE) private final Memory memory = new Memory();
+
+    // Register files, indexed by register number; the integer file holds $0..$31 followed by $hi and $lo
+    @Getter(AccessLevel.NONE) private final int[] registers = new int[NUM_INT_REGISTERS];
+    @Getter(AccessLevel.NONE) private final double[] fpRegisters = new double[NUM_FP_REGISTERS];
+    @Getter(AccessLevel.NONE) private final int[] cp0Registers = new int[NUM_CP0_REGISTERS];
 
     // Program state
     @Setter private boolean fpConditionFlag;
     @Setter private int programCounter;
+    @Setter private ExecutionMode executionMode = ExecutionMode.INTERPRETED;
 
-    // Labels and diagnostic
-    private final Map<String, Integer> labels = new HashMap<>();
+    // Diagnostic
     private final DiagnosticService diagnosticService;
 
     // "Load linked" bit
@@ -93,57 +66,201 @@ public class ASMEvaluator implements AutoCloseable {
 
     // ------------------------------------------------
 
-    @Getter private final Logger programLogger = LogManager.getLogger("programOutput");
     @Getter private final Logger debugLogger = LogManager.getLogger("debugOutput");
     @Getter private final Logger diagnosticLogger = LogManager.getLogger("diagnosticOutput");
     @Getter private final Map<String, Integer> variableAddresses;
     @Getter private final boolean debug;
 
+    // Input and output of the syscalls
+    @Getter private SyscallContext syscallContext;
+
     // ------------------------------------------------
 
     // Shutdown management
     private final AtomicBoolean shutdownRequested = new AtomicBoolean(false);
     private CompletableFuture<Void> shutdownFuture;
+    private volatile boolean haltRequested;
+    private boolean halted; // the program was stopped by requestHalt() rather than ending on its own
+    private int exitCode;
+    private boolean closed;
 
-    public ASMEvaluator(DiagnosticService diagnosticService, boolean debug) {
-        this.debug = debug;
-        this.diagnosticService = diagnosticService.withLogger(diagnosticLogger);
-        // off-heap memory allocation
-        intRegisterBase = UNSAFE.allocateMemory(INT_REGISTER_REGION_SIZE);
-        fpRegisterBase  = UNSAFE.allocateMemory(FP_REGISTER_REGION_SIZE);
-        cp0RegisterBase = UNSAFE.allocateMemory(CP0_REGISTER_REGION_SIZE);
-        memoryBase      = UNSAFE.allocateMemory(MAIN_MEMORY_SIZE);
+    // Instruction accounting: instructions the current program retired, and the budget after which
+    // it is stopped; both are brought up to date at safepoints
+    private long retiredInstructions;
+    @Setter private long instructionLimit = Long.MAX_VALUE;
+    private boolean instructionLimitReached;
+
+    /**
+     * Creates an evaluator, picking the {@link TracingASMEvaluator} when {@code debug} is set.
+     * The tracing subclass is only loaded in debug runs, so production call sites into the
+     * register and memory accessors see a single receiver type and carry no logging checks.
+     */
+    public static ASMEvaluator create(DiagnosticService diagnosticService, boolean debug) {
+        return create(diagnosticService, SyscallContext.standard(), debug);
+    }
+
+    /**
+     * Like {@link #create(DiagnosticService, boolean)}, with the syscalls using {@code syscallContext}.
+     */
+    public static ASMEvaluator create(DiagnosticService diagnosticService, SyscallContext syscallContext, boolean debug) {
+        return debug
+                ? new TracingASMEvaluator(diagnosticService, syscallContext)
+                : new ASMEvaluator(diagnosticService, syscallContext);
+    }
+
+    /**
+     * Creates an evaluator whose syscalls use the process's standard input and output.
+     */
+    public ASMEvaluator(DiagnosticService diagnosticService) {
+        this(diagnosticService, SyscallContext.standard());
+    }
 
-        UNSAFE.setMemory(intRegisterBase, INT_REGISTER_REGION_SIZE, (byte) 0);
-        UNSAFE.setMemory(fpRegisterBase,  FP_REGISTER_REGION_SIZE,  (byte) 0);
-        UNSAFE.setMemory(cp0RegisterBase, CP0_REGISTER_REGION_SIZE, (byte) 0);
-        UNSAFE.setMemory(memoryBase,      MAIN_MEMORY_SIZE,         (byte) 0);
+    /**
+     * Creates an evaluator whose syscalls use {@code syscallContext}, which it closes when it
+     * is closed itself. The standard streams are never touched.
+     */
+    public ASMEvaluator(DiagnosticService diagnosticService, SyscallContext syscallContext) {
+        this(diagnosticService, syscallContext, false);
+    }
 
+    protected ASMEvaluator(DiagnosticService diagnosticService, SyscallContext syscallContext, boolean debug) {
+        this.debug = debug;
+        this.syscallContext = syscallContext;
+        this.diagnosticService = diagnosticService.withLogger(diagnosticLogger);
         this.variableAddresses = new ConcurrentHashMap<>();
         initializeRegisters();
     }
 
+    private void initializeRegisters() {
+        registers[Registers.GP] = Memory.GLOBAL_POINTER;
+        registers[Registers.SP] = Memory.STACK_POINTER;
+    }
+
     private void freeMemory() {
         try {
-            UNSAFE.freeMemory(intRegisterBase);
-            UNSAFE.freeMemory(fpRegisterBase);
-            UNSAFE.freeMemory(cp0RegisterBase);
-            UNSAFE.freeMemory(memoryBase);
+            memory.close();
         } catch (Exception e) {
             if (debug) debugLogger.error("Error freeing memory: {}", e.getMessage());
         }
     }
 
     @Override
-    public void close() {
-        if (!shutdownRequested.get()) {
-            freeMemory();
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            try {
+                syscallContext.close();
+            } finally {
+                freeMemory();
+            }
+        }
+    }
+
+    /**
+     * Runs the syscalls of the next programs against {@code syscallContext}. The current
+     * context's output is flushed but not closed; the evaluator closes {@code syscallContext}
+     * when it is closed itself.
+     */
+    public void setSyscallContext(SyscallContext syscallContext) {
+        this.syscallContext.getOutput().flush();
+        this.syscallContext = syscallContext;
+    }
+
+    /**
+     * @return the output channel of the {@link #syscallContext}
+     */
+    public ProgramOutput getOutput() {
+        return syscallContext.getOutput();
+    }
+
+    /**
+     * Returns the evaluator to the state of a freshly constructed one so it can run another
+     * program: registers, program state, variables, diagnostics and memory are cleared.
+     * Memory only zeroes the pages the previous program wrote and keeps them allocated.
+     * Must not be called while a program is running.
+     */
+    public synchronized void reset() {
+        if (closed) {
+            throw new IllegalStateException("Cannot reset a closed evaluator");
+        }
+        Arrays.fill(registers, 0);
+        Arrays.fill(fpRegisters, 0);
+        Arrays.fill(cp0Registers, 0);
+        initializeRegisters();
+        memory.reset();
+
+        fpConditionFlag = false;
+        programCounter = 0;
+        llBit = false;
+        variableAddresses.clear();
+        diagnosticService.clear();
+
+        shutdownRequested.set(false);
+        shutdownFuture = null;
+        haltRequested = false;
+        halted = false;
+        exitCode = 0;
+        retiredInstructions = 0;
+        instructionLimitReached = false;
+    }
+
+    /**
+     * Captures the machine state for {@link MachineSnapshot#fork forking}. Must not be
+     * called while a program is running.
+     */
+    public synchronized MachineSnapshot snapshot() {
+        return new MachineSnapshot(
+                registers.clone(),
+                fpRegisters.clone(),
+                cp0Registers.clone(),
+                fpConditionFlag,
+                Map.copyOf(variableAddresses),
+                memory.snapshot()
+        );
+    }
+
+    /**
+     * Resets the evaluator and then loads {@code snapshot}. Memory pages are shared with the
+     * snapshot and copied on first write, so restoring costs little more than a reset. The
+     * {@link SyscallContext} is kept.
+     */
+    public synchronized void restore(MachineSnapshot snapshot) {
+        reset();
+        System.arraycopy(snapshot.registers, 0, registers, 0, registers.length);
+        System.arraycopy(snapshot.fpRegisters, 0, fpRegisters, 0, fpRegisters.length);
+        System.arraycopy(snapshot.cp0Registers, 0, cp0Registers, 0, cp0Registers.length);
+        fpConditionFlag = snapshot.fpConditionFlag;
+        variableAddresses.putAll(snapshot.variableAddresses);
+        memory.restore(snapshot.memory);
+
+        if (debug) {
+            snapshot.variableAddresses.forEach((name, address) ->
+                    debugLogger.debug("Initialized variable \"{}\" at address \"{}\"", name, address));
         }
     }
 
-    public synchronized CompletableFuture<Void> shutdown(@Nullable InstructionHandler callerInstance) {
+    /**
+     * @return the number of memory pages allocated so far, including clean ones kept by {@link #reset()}
+     */
+    public int getResidentPages() {
+        return memory.getPageCount();
+    }
+
+    public CompletableFuture<Void> shutdown(@Nullable InstructionHandler callerInstance) {
+        return shutdown(callerInstance, 0);
+    }
+
+    /**
+     * Ends the program from inside an instruction handler. No instruction after the calling
+     * one runs: the program counter is moved past the end of the program, so the execution
+     * loops stop without having to poll anything.
+     * <p>
+     * Must be called on the evaluating thread; other threads use {@link #requestHalt()}.
+     */
+    public synchronized CompletableFuture<Void> shutdown(@Nullable InstructionHandler callerInstance, int exitCode) {
         if (shutdownRequested.compareAndSet(false, true)) {
             shutdownFuture = new CompletableFuture<>();
+            this.exitCode = exitCode;
             if (debug) {
                 debugLogger.debug(
                         callerInstance != null ?
@@ -152,468 +269,485 @@ public class ASMEvaluator implements AutoCloseable {
                 );
             }
         }
+        haltRequested = true;
+        programCounter = HALTED - 1;
         return shutdownFuture;
     }
 
-    private void initializeRegisters() {
-        initializeArgumentRegisters();
-        initializeTemporaryAndValueRegisters();
-        initializeSpecialRegisters();
-        initializeFPRegisters();
-        initializeCP0Registers();
-    }
-
-    private void initializeArgumentRegisters() {
-        long currentOffset = 0;
-        for (int i = 0; i < 8; i++) {
-            intRegisterOffsets.put("$a" + i, currentOffset);
-            currentOffset += SIZEOF_INT;
-            if (debug) debugLogger.debug("Register $a{} at offset {}", i, currentOffset);
-        }
+    /**
+     * Asks a running program to stop. Safe to call from any thread (timeouts, Ctrl-C,
+     * cancellation of a server request).
+     * <p>
+     * The flag is not checked on every instruction: the execution loops read it once every
+     * {@value #SAFEPOINT_INTERVAL} dispatches and compiled blocks read it on their loop
+     * back-edge, so the program stops within a bounded number of instructions.
+     */
+    public void requestHalt() {
+        haltRequested = true;
     }
 
-    private void initializeTemporaryAndValueRegisters() {
-        long currentOffset = 8 * SIZEOF_INT;
-        for (int i = 0; i < 32; i++) {
-            intRegisterOffsets.put("$t" + i, currentOffset);
-            currentOffset += SIZEOF_INT;
-            if (debug) debugLogger.debug("Register $t{} at offset {}", i, currentOffset);
-
-            intRegisterOffsets.put("$v" + i, currentOffset);
-            currentOffset += SIZEOF_INT;
-            if (debug) debugLogger.debug("Register $v{} at offset {}", i, currentOffset);
-        }
+    /**
+     * Counts instructions a single dispatch retired on top of the one the execution loop counts
+     * for it, e.g. the second half of a fused pair or the rest of a compiled block.
+     */
+    public void retire(int instructions) {
+        retiredInstructions += instructions;
     }
 
-    private void initializeSpecialRegisters() {
-        long currentOffset = (8 + 64) * SIZEOF_INT;
-        String[] specialRegs = {"$ra", "$hi", "$lo"};
-        for (String reg : specialRegs) {
-            intRegisterOffsets.put(reg, currentOffset);
-            currentOffset += SIZEOF_INT;
-            if (debug) debugLogger.debug("Register {} at offset {}", reg, currentOffset);
+    /**
+     * Safepoint on the back-edge of a compiled loop. Counts the iteration that just completed
+     * unless the loop has to leave, in which case the block's exit counts it.
+     *
+     * @return whether the loop may run another iteration
+     */
+    public boolean continueLoop(int blockLength) {
+        if (haltRequested || retiredInstructions >= instructionLimit) {
+            return false;
         }
+        retiredInstructions += blockLength;
+        return true;
     }
 
-    private void initializeFPRegisters() {
-        long currentOffset = 0;
-        for (int i = 0; i < 32; i++) {
-            fpRegisterOffsets.put("$f" + i, currentOffset);
-            currentOffset += SIZEOF_DOUBLE;
-            if (debug) debugLogger.debug("Register $f{} at offset {}", i, currentOffset);
+    public void evaluate(List<Instruction> instructions, Map<String, Integer> labels) {
+        DecodedProgram program = new ProgramDecoder(diagnosticService).decode(instructions, labels);
+        if (!new ProgramVerifier(diagnosticService).verify(program) || diagnosticService.hasErrors()) {
+            return;
         }
+        evaluate(program);
     }
 
-    private void initializeCP0Registers() {
-        long currentOffset = 0;
-        for (int i = 0; i < NUM_CP0_REGISTERS; i++) {
-            cp0RegisterOffsets.put("cp0_" + i, currentOffset);
-            currentOffset += SIZEOF_INT;
-            if (debug) debugLogger.debug("Register cp0_{} at offset {}", i, currentOffset);
+    /**
+     * Executes an already verified program. Handlers trust their operands, so callers
+     * must run the {@link ProgramVerifier} first. The program's output is flushed when
+     * it ends, however it ends.
+     */
+    public void evaluate(DecodedProgram program) {
+        try {
+            switch (executionMode) {
+                case INTERPRETED -> executeInstructions(program);
+                case THREADED -> executeCompiled(program, CompiledProgram.compile(program));
+                case TIERED -> executeCompiled(program, TieredCompiler.compile(program));
+            }
+        } finally {
+            getOutput().flush();
         }
     }
 
-    public void evaluate(List<Instruction> instructions) {
-        processLabels(instructions);
-        executeInstructions(instructions);
+    /**
+     * Lays the variables out and installs them, see {@link #installDataSegment}.
+     *
+     * @throws InvalidProgramStructureException if a value does not fit its directive
+     */
+    public void initializeVariables(Map<String, Variable> variables) throws InvalidProgramStructureException {
+        installDataSegment(DataSegment.layout(variables.values()));
     }
 
-    private void processLabels(List<Instruction> instructions) {
-        for (int i = 0; i < instructions.size(); i++) {
-            Instruction instruction = instructions.get(i);
-            if (instruction.isLabel()) {
-                String labelName = instruction.getLabel();
-                labels.put(labelName, i);
-                if (debug) debugLogger.debug("Label {} at {}", labelName, i);
-            }
-            if (debug) debugLogger.debug("Instruction {} at {}", instruction.name(), i);
+    /**
+     * Copies an assembled data segment to {@link Memory#DATA_BASE} and registers its variables.
+     */
+    public void installDataSegment(DataSegment data) {
+        for (DataSegment.Chunk chunk : data.chunks()) {
+            memory.putBytes(chunk.address(), chunk.bytes());
         }
-    }
+        variableAddresses.putAll(data.addresses());
 
-    public void initializeVariables(Map<String, Variable> variables) {
-        long currentAddress = memoryBase;
-
-        for (Variable var : variables.values()) {
-            String varName = var.name();
-            int relativeAddress = (int)(currentAddress - memoryBase);
-            variableAddresses.put(varName, relativeAddress);
+        if (debug) {
+            data.addresses().forEach((name, address) ->
+                    debugLogger.debug("Initialized variable \"{}\" at address \"{}\"", name, address));
+        }
+    }
 
-            switch (var.type()) {
-                case WORD -> {
-                    int value = Integer.parseInt(var.value());
-                    storeWordToMemory((int)(currentAddress - memoryBase), value);
-                    currentAddress += SIZEOF_INT;
-                }
-                case BYTE -> {
-                    byte value = Byte.parseByte(var.value());
-                    storeByteToMemory((int)(currentAddress - memoryBase), value);
-                    currentAddress += SIZEOF_BYTE;
-                }
-                case HALF -> {
-                    short value = Short.parseShort(var.value());
-                    storeHalfWordToMemory((int)(currentAddress - memoryBase), value);
-                    currentAddress += SIZEOF_SHORT;
-                }
-                case FLOAT -> {
-                    float value = Float.parseFloat(var.value());
-                    storeFloatToMemory((int)(currentAddress - memoryBase), value);
-                    currentAddress += SIZEOF_FLOAT;
-                }
-                case DOUBLE -> {
-                    double value = Double.parseDouble(var.value());
-                    storeDoubleWordToMemory((int)(currentAddress - memoryBase), Double.doubleToLongBits(value));
-                    currentAddress += SIZEOF_DOUBLE;
-                }
-                case ASCII, ASCIIZ -> {
-                    String value = var.value().replace("\"", "");
-                    byte[] bytes = value.getBytes();
-                    for (byte b : bytes) {
-                        storeByteToMemory((int)(currentAddress - memoryBase), b);
-                        currentAddress += SIZEOF_BYTE;
-                    }
-                    if (var.is(Variable.Type.ASCIIZ)) {
-                        storeByteToMemory((int)(currentAddress - memoryBase), (byte) 0);
-                        currentAddress += SIZEOF_BYTE;
-                    }
-                }
-                case SPACE -> {
-                    int size = Integer.parseInt(var.value());
-                    for (int i = 0; i < size; i++) {
-                        storeByteToMemory((int)(currentAddress - memoryBase), (byte) 0);
-                        currentAddress += SIZEOF_BYTE;
+    private void executeInstructions(DecodedProgram program) {
+        int safepoint = SAFEPOINT_INTERVAL;
+        try {
+            int size = program.size();
+            for (programCounter = 0; programCounter >= 0 && programCounter < size; programCounter++) {
+                executeInstruction(program.get(programCounter));
+
+                if (--safepoint == 0) {
+                    retiredInstructions += SAFEPOINT_INTERVAL;
+                    safepoint = SAFEPOINT_INTERVAL;
+                    if (stopAtSafepoint()) {
+                        break;
                     }
                 }
             }
-
-            if (debug) {
-                debugLogger.debug("Initialized variable \"{}\" of type \"{}\" at address \"{}\"",
-                        var.name(), var.type(), currentAddress - memoryBase);
-            }
+        } catch (MemoryAccessException e) {
+            raiseAddressError(e, programCounter, program);
+        } finally {
+            retiredInstructions += SAFEPOINT_INTERVAL - safepoint;
+            handleShutdown();
         }
     }
 
-    private void executeInstructions(List<Instruction> instructions) {
+    /**
+     * Threaded dispatch: every node returns the index of its successor, so the loop
+     * never touches the handler list or the operand objects.
+     */
+    private void executeCompiled(DecodedProgram source, CompiledProgram program) {
+        int pc = 0;
+        int safepoint = SAFEPOINT_INTERVAL;
         try {
-            for (programCounter = 0; programCounter < instructions.size(); programCounter++) {
-                if (shouldShutdown()) {
-                    logShutdownDetected("before executing instruction");
-                    break;
-                }
-
-                Instruction instruction = instructions.get(programCounter);
-                if (!instruction.isLabel()) {
-                    executeInstruction(instruction);
-                }
-
-                if (shouldShutdown()) {
-                    logShutdownDetected("after executing instruction");
-                    break;
+            int size = program.size();
+            while (pc >= 0 && pc < size) {
+                pc = program.get(pc).run(this);
+
+                if (--safepoint == 0) {
+                    retiredInstructions += SAFEPOINT_INTERVAL;
+                    safepoint = SAFEPOINT_INTERVAL;
+                    if (stopAtSafepoint()) {
+                        break;
+                    }
                 }
             }
+            programCounter = pc;
+        } catch (MemoryAccessException e) {
+            raiseAddressError(e, pc, source);
         } finally {
+            retiredInstructions += SAFEPOINT_INTERVAL - safepoint;
             handleShutdown();
         }
     }
 
-    private boolean shouldShutdown() {
-        return shutdownRequested.get();
+    /**
+     * @return whether the program has to stop: a halt was requested or it used up its
+     *         {@link #instructionLimit}, which is reported as an error
+     */
+    private boolean stopAtSafepoint() {
+        if (haltRequested) {
+            // shutdown() raises the flag too; only a program that had not ended yet was halted
+            halted = !shutdownRequested.get();
+            logShutdownDetected("at safepoint");
+            return true;
+        }
+        if (retiredInstructions >= instructionLimit) {
+            instructionLimitReached = true;
+            diagnosticService.addError("Instruction limit of " + instructionLimit + " reached.");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a MIPS address error in CP0 (BadVAddr, Cause, EPC) and stops the program,
+     * since there is no exception handler to vector to. {@code pc} is the node that was
+     * running, unless the exception names the instruction inside it that faulted.
+     */
+    private void raiseAddressError(MemoryAccessException e, int pc, DecodedProgram program) {
+        if (e.getInstruction() >= 0) {
+            pc = e.getInstruction();
+        }
+        setCp0Register(Registers.BAD_VADDR, e.getAddress());
+        setCp0Register(Registers.CAUSE, e.exceptionCode() << 2);
+        setCp0Register(Registers.EPC, pc);
+        diagnosticService.addError(e.getMessage() + " (instruction " + pc + ", line " + program.line(pc) + ")");
     }
 
     private void logShutdownDetected(String context) {
         if (debug) debugLogger.debug("Shutdown detected {}. Stopping execution.", context);
     }
 
-    public void handleShutdown(int errorCode) {
+    /**
+     * Completes a shutdown requested by the program. Memory stays allocated until
+     * {@link #close()}. A non-zero exit code is only recorded: the caller reads it with
+     * {@link #getExitCode()}, and exiting the JVM is left to it.
+     */
+    private void handleShutdown() {
         if (shutdownRequested.get()) {
-            if (debug) debugLogger.debug("Performing shutdown steps with error code: {}.", errorCode);
-            freeMemory();
+            if (debug) debugLogger.debug("Performing shutdown steps with error code: {}.", exitCode);
             if (shutdownFuture != null && !shutdownFuture.isDone()) {
                 shutdownFuture.complete(null);
             }
-            if (debug) debugLogger.debug("Memory freed. Shutdown complete with code: {}.", errorCode);
+            if (debug) debugLogger.debug("Shutdown complete with code: {}.", exitCode);
+        }
+    }
 
-            if (errorCode != 0) {
-                throw new RuntimeException("Program terminated with error code: " + errorCode);
-            }
+    protected void executeInstruction(DecodedInstruction instruction) {
+        instruction.handler().execute(instruction.operands(), this);
+    }
 
-            System.exit(errorCode);
-        }
+    // ------------------------------------------------
+    // Register access by resolved index
+    // ------------------------------------------------
+    public int getRegister(int index) {
+        return registers[index];
     }
 
-    private void handleShutdown() {
-        handleShutdown(0);
+    public void setRegister(int index, int value) {
+        registers[index] = value;
+        registers[Registers.ZERO] = 0; // $zero is hardwired: undo any write instead of branching on it
     }
 
-    private void executeInstruction(Instruction instruction) {
-        InstructionHandler handler = InstructionFactory.getInstance()
-                .getInstructionHandler(instruction.name());
+    public double getFpRegister(int index) {
+        return fpRegisters[index];
+    }
 
-        if (handler != null) {
-            handler.execute(instruction.operands(), this);
-            if (debug) debugLogger.debug("Register $v0 = {}", getRegisterValue(new Operand("$v0")));
-        } else {
-            diagnosticService.addError("Instruction not supported: " + instruction.name());
-        }
+    public void setFpRegister(int index, double value) {
+        fpRegisters[index] = value;
+    }
+
+    public int getCp0Register(int index) {
+        return cp0Registers[index];
+    }
+
+    public void setCp0Register(int index, int value) {
+        cp0Registers[index] = value;
     }
 
+    // ------------------------------------------------
+    // Register access by operand
+    // ------------------------------------------------
     public int getRegisterValue(Operand operand) {
-        Long offset = intRegisterOffsets.get(operand.value());
-        if (offset == null) {
+        if (!operand.is(Operand.Kind.INT_REGISTER)) {
             diagnosticService.addError("Unknown register: " + operand.value());
             return 0;
         }
-        if (debug) debugLogger.debug("Value of " + operand.value() + " is " + UNSAFE.getInt(intRegisterBase + offset));
-        return UNSAFE.getInt(intRegisterBase + offset);
+        return getRegister(operand.index());
     }
 
     public void setRegisterValue(Operand operand, int value) {
-        Long offset = intRegisterOffsets.get(operand.value());
-        if (offset == null) {
+        if (!operand.is(Operand.Kind.INT_REGISTER)) {
             diagnosticService.addError("Unknown register: " + operand.value());
             return;
         }
-        if (debug) debugLogger.debug("Setting " + operand.value() + " to " + value);
-        UNSAFE.putInt(intRegisterBase + offset, value);
+        setRegister(operand.index(), value);
     }
 
     public double getFpRegisterValue(Operand operand) {
-        Long offset = fpRegisterOffsets.get(operand.value());
-        if (offset == null) {
+        if (!operand.is(Operand.Kind.FP_REGISTER)) {
             diagnosticService.addError("Unknown FP register: " + operand.value());
             return 0.0;
         }
-        if (debug) debugLogger.debug("Value of " + operand.value() + " is " + UNSAFE.getDouble(fpRegisterBase + offset));
-        return UNSAFE.getDouble(fpRegisterBase + offset);
+        return getFpRegister(operand.index());
     }
 
     public void setFpRegisterValue(Operand operand, double value) {
-        Long offset = fpRegisterOffsets.get(operand.value());
-        if (offset == null) {
+        if (!operand.is(Operand.Kind.FP_REGISTER)) {
             diagnosticService.addError("Unknown FP register: " + operand.value());
             return;
         }
-        if (debug) debugLogger.debug("Setting " + operand.value() + " to " + value);
-        UNSAFE.putDouble(fpRegisterBase + offset, value);
+        setFpRegister(operand.index(), value);
     }
 
     public int getCp0RegisterValue(Operand operand) {
-        Long offset = cp0RegisterOffsets.get(operand.value());
-        if (offset == null) {
+        if (!operand.is(Operand.Kind.CP0_REGISTER)) {
             diagnosticService.addError("Unknown CP0 register: " + operand.value());
             return 0;
         }
-        if (debug) debugLogger.debug("Value of " + operand.value() + " is " + UNSAFE.getInt(cp0RegisterBase + offset));
-        return UNSAFE.getInt(cp0RegisterBase + offset);
+        return getCp0Register(operand.index());
     }
 
     public void setCp0RegisterValue(Operand operand, int value) {
-        Long offset = cp0RegisterOffsets.get(operand.value());
-        if (offset == null) {
+        if (!operand.is(Operand.Kind.CP0_REGISTER)) {
             diagnosticService.addError("Unknown CP0 register: " + operand.value());
             return;
         }
-        if (debug) debugLogger.debug("Setting {} to {}", operand.value(), value);
-        UNSAFE.putInt(cp0RegisterBase + offset, value);
+        setCp0Register(operand.index(), value);
     }
 
-    public void branchToLabel(String label) {
-        Integer target = labels.get(label);
-        if (target != null) {
-            programCounter = target - 1; // -1 because the for-loop increments it
-            if (debug) debugLogger.debug("Branching to label {} at {}", label, target);
-        } else {
-            diagnosticService.addError("Label not found: " + label);
-        }
+    /**
+     * Computes the address referenced by a memory operand: {@code offset($base)},
+     * a register holding the address, an absolute immediate or a variable name.
+     */
+    public int effectiveAddress(Operand operand) {
+        return switch (operand.kind()) {
+            case INT_REGISTER -> getRegister(operand.index());
+            case MEMORY -> operand.symbol() == null
+                    ? getRegister(operand.index()) + operand.immediate()
+                    : getRegister(operand.index()) + symbolAddress(operand.symbol());
+            case IMMEDIATE -> operand.immediate();
+            case SYMBOL -> symbolAddress(operand.symbol());
+            case LABEL -> operand.target();
+            default -> {
+                diagnosticService.addError("Invalid memory operand: " + operand.value());
+                yield 0;
+            }
+        };
     }
 
-    public void jumpToLabel(String label) {
-        Integer target = labels.get(label);
-        if (target != null) {
-            programCounter = target;
-            if (debug) debugLogger.debug("Jumping to label {} at {}", label, target);
-        } else {
-            diagnosticService.addError("Label not found: " + label);
-        }
+    private int symbolAddress(String symbol) {
+        Integer address = getVariableAddress(symbol);
+        return address != null ? address : 0;
+    }
+
+    /*
+     * Control transfers store target - 1 because the execution loop increments the
+     * program counter after every instruction. Return addresses saved by jal/jalr
+     * and friends are the index of the next instruction, so jr $ra resumes there.
+     */
+
+    public void branchTo(int target) {
+        programCounter = target - 1;
+    }
+
+    public void jumpTo(int target) {
+        programCounter = target - 1;
     }
 
-    public void jumpToRegister(String register) {
-        programCounter = getRegisterValue(new Operand(register));
-        if (debug) debugLogger.debug("Jumping to register {} at {}", register, programCounter);
+    public void jumpToRegister(int register) {
+        int target = getRegister(register);
+        programCounter = target - 1;
     }
 
     public void storeByteToMemory(int address, byte value) {
-        checkMemoryBounds(address, SIZEOF_BYTE);
-        if (debug) debugLogger.debug("Storing byte {} at {}", value, address);
-        UNSAFE.putByte(memoryBase + address, value);
+        memory.putByte(address, value);
     }
 
-    public void storeConditional(int address, int value) {
+    /**
+     * SC (Store Conditional) – stores {@code value} only if the LL bit is still set and
+     * writes 1 (success) or 0 (failure) back into {@code register}.
+     */
+    public void storeConditional(int register, int address, int value) {
         if (llBit) {
             storeWordToMemory(address, value);
             llBit = false;
-            setRegisterValue(new Operand("$t1"), 1);
-            if (debug) debugLogger.debug("LL bit set to 1");
+            setRegister(register, 1);
         } else {
-            setRegisterValue(new Operand("$t1"), 0);
+            setRegister(register, 0);
         }
     }
 
-    public void loadLinked(int address) {
+    public void loadLinked(int register, int address) {
         llBit = true;
-        setRegisterValue(new Operand("$t1"), loadWordFromMemory(address));
-        if (debug) debugLogger.debug("LL bit set to 1");
+        setRegister(register, loadWordFromMemory(address));
     }
 
     public void storeDoubleWordToMemory(int address, long value) {
-        checkMemoryBounds(address, SIZEOF_LONG);
-        long mipsValue = NEEDS_BYTE_SWAP ? Long.reverseBytes(value) : value;
-        UNSAFE.putLong(memoryBase + address, mipsValue);
-        if (debug) debugLogger.debug("Storing double word {} (MIPS: {}) at {}", value, mipsValue, address);
+        memory.putLong(address, value);
     }
 
     public void storeHalfWordToMemory(int address, short value) {
-        checkMemoryBounds(address, SIZEOF_SHORT);
-        short mipsValue = NEEDS_BYTE_SWAP ? Short.reverseBytes(value) : value;
-        UNSAFE.putShort(memoryBase + address, mipsValue);
-        if (debug) debugLogger.debug("Storing half word {} (MIPS: {}) at {}", value, mipsValue, address);
+        memory.putShort(address, value);
     }
 
     public void storeWordToMemory(int address, int value) {
-        checkMemoryBounds(address, SIZEOF_INT);
-        int mipsValue = NEEDS_BYTE_SWAP ? Integer.reverseBytes(value) : value;
-        UNSAFE.putInt(memoryBase + address, mipsValue);
-        if (debug) debugLogger.debug("Storing word {} (MIPS: {}) at {}", value, mipsValue, address);
+        memory.putInt(address, value);
     }
 
     public void storeFloatToMemory(int address, float value) {
-        checkMemoryBounds(address, SIZEOF_FLOAT);
-        if (NEEDS_BYTE_SWAP) {
-            int intBits = Float.floatToIntBits(value);
-            int mipsIntBits = Integer.reverseBytes(intBits);
-            UNSAFE.putInt(memoryBase + address, mipsIntBits);
-            if (debug) debugLogger.debug("Storing float {} (MIPS bits: {}) at {}", value, mipsIntBits, address);
-        } else {
-            UNSAFE.putFloat(memoryBase + address, value);
-            if (debug) debugLogger.debug("Storing float {} at {}", value, address);
-        }
+        memory.putInt(address, Float.floatToIntBits(value));
     }
 
     public void storeWordLeftToMemory(int address, int value) {
         // Align address to lower multiple of 4
         int alignedAddress = address & ~3;
-        if (debug) debugLogger.debug("[SWLTM] Storing word left {} at {}", value, alignedAddress);
-        checkMemoryBounds(alignedAddress, SIZEOF_INT);
 
         int shift = (address & 3) * 8;
         int mask = 0xFFFFFFFF >>> shift;
-        if (debug) debugLogger.debug("[SWLTM] Shift: {}, Mask: {}", shift, mask);
 
-        int existingValue = UNSAFE.getInt(memoryBase + alignedAddress);
-        if (debug) debugLogger.debug("[SWLTM] Existing value: {}", existingValue);
+        int existingValue = memory.getInt(alignedAddress);
         int newValue = (value << shift) | (existingValue & mask);
-        if (debug) debugLogger.debug("[SWLTM] New value: {}", newValue);
 
-        UNSAFE.putInt(memoryBase + alignedAddress, newValue);
-        if (debug) debugLogger.debug("[SWLTM] Stored word left {} at {}", value, alignedAddress);
+        memory.putInt(alignedAddress, newValue);
     }
 
     public void storeWordRightToMemory(int address, int value) {
         // Align address to lower multiple of 4
         int alignedAddress = address & ~3;
-        if (debug) debugLogger.debug("[SWRTM] Storing word right {} at {}", value, alignedAddress);
-        checkMemoryBounds(alignedAddress, SIZEOF_INT);
 
         int shift = (3 - (address & 3)) * 8;
         int mask = 0xFFFFFFFF << shift;
-        if (debug) debugLogger.debug("[SWRTM] Shift: {}, Mask: {}", shift, mask);
 
-        int existingValue = UNSAFE.getInt(memoryBase + alignedAddress);
-        if (debug) debugLogger.debug("[SWRTM] Existing value: {}", existingValue);
+        int existingValue = memory.getInt(alignedAddress);
         int newValue = (value >>> shift) | (existingValue & mask);
-        if (debug) debugLogger.debug("[SWRTM] New value: {}", newValue);
 
-        UNSAFE.putInt(memoryBase + alignedAddress, newValue);
-        if (debug) debugLogger.debug("[SWRTM] Stored word right {} at {}", value, alignedAddress);
+        memory.putInt(alignedAddress, newValue);
     }
 
     public byte loadByteFromMemory(int address) {
-        checkMemoryBounds(address, SIZEOF_BYTE);
-        if (debug) debugLogger.debug("Loading byte at {} with value {}", address, UNSAFE.getByte(memoryBase + address));
-        return UNSAFE.getByte(memoryBase + address);
+        return memory.getByte(address);
     }
 
     public short loadHalfWordFromMemory(int address) {
-        checkMemoryBounds(address, SIZEOF_SHORT);
-        short rawValue = UNSAFE.getShort(memoryBase + address);
-        short hostValue = NEEDS_BYTE_SWAP ? Short.reverseBytes(rawValue) : rawValue;
-        if (debug) debugLogger.debug("Loading half word at {} with MIPS value {} (host: {})", address, rawValue, hostValue);
-        return hostValue;
+        return memory.getShort(address);
     }
 
     public int loadWordFromMemory(int address) {
-        checkMemoryBounds(address, SIZEOF_INT);
-        int rawValue = UNSAFE.getInt(memoryBase + address);
-        int hostValue = NEEDS_BYTE_SWAP ? Integer.reverseBytes(rawValue) : rawValue;
-        if (debug) debugLogger.debug("Loading word at {} with MIPS value {} (host: {})", address, rawValue, hostValue);
-        return hostValue;
+        return memory.getInt(address);
     }
 
     public float loadFloatFromMemory(int address) {
-        checkMemoryBounds(address, SIZEOF_FLOAT);
-        if (NEEDS_BYTE_SWAP) {
-            int rawIntBits = UNSAFE.getInt(memoryBase + address);
-            int hostIntBits = Integer.reverseBytes(rawIntBits);
-            float hostValue = Float.intBitsToFloat(hostIntBits);
-            if (debug) debugLogger.debug("Loading float at {} with MIPS bits {} (host: {})", address, rawIntBits, hostValue);
-            return hostValue;
-        } else {
-            float value = UNSAFE.getFloat(memoryBase + address);
-            if (debug) debugLogger.debug("Loading float at {} with value {}", address, value);
-            return value;
-        }
+        return Float.intBitsToFloat(memory.getInt(address));
     }
 
     public long loadDoubleWordFromMemory(int address) {
-        checkMemoryBounds(address, SIZEOF_LONG);
-        long rawValue = UNSAFE.getLong(memoryBase + address);
-        long hostValue = NEEDS_BYTE_SWAP ? Long.reverseBytes(rawValue) : rawValue;
-        if (debug) debugLogger.debug("Loading double word at {} with MIPS value {} (host: {})", address, rawValue, hostValue);
-        return hostValue;
+        return memory.getLong(address);
     }
 
     /**
      * LWL (Load Word Left) – loads high-order bytes from memory into the register.
      */
     public int loadWordLeftFromMemory(int address) {
-        // Align address
-        int alignedAddress = address & ~3;
-        checkMemoryBounds(alignedAddress, SIZEOF_INT);
-
-        if (debug)
-            debugLogger.debug("Loading word left at {} with value {}", address, UNSAFE.getInt(memoryBase + alignedAddress));
-
         int shift = (address & 3) * 8;
-        int value = UNSAFE.getInt(memoryBase + alignedAddress);
-        if (debug) debugLogger.debug("Shift: {}, Value: {}", shift, value);
-        if (debug) debugLogger.debug("Shifted value: {}", value >>> shift);
-        return value >>> shift;
+        return memory.getInt(address & ~3) >>> shift;
     }
 
     /**
      * LWR (Load Word Right) – loads low-order bytes from memory into the register.
      */
     public int loadWordRightFromMemory(int address) {
-        // Align address
-        int alignedAddress = address & ~3;
-        checkMemoryBounds(alignedAddress, SIZEOF_INT);
-        if (debug)
-            debugLogger.debug("Loading word right at {} with value {}", address, UNSAFE.getInt(memoryBase + alignedAddress));
-
         int shift = (3 - (address & 3)) * 8;
-        int value = UNSAFE.getInt(memoryBase + alignedAddress);
-        if (debug) debugLogger.debug("Shift: {}, Value: {}", shift, value);
-        if (debug) debugLogger.debug("Shifted value: {}", value << shift);
-        return value << shift;
+        return memory.getInt(address & ~3) << shift;
+    }
+
+    // ------------------------------------------------
+    // Bulk memory, see Memory for the semantics
+    // ------------------------------------------------
+
+    /**
+     * @return the offset of the first {@code value} in {@code [address, address + length)}, or -1
+     */
+    public int indexOfByte(int address, int length, byte value) {
+        return memory.indexOf(address, length, value);
+    }
+
+    /**
+     * @return the length of the NUL-terminated string at {@code address}, or -1 if it is longer than {@code limit}
+     */
+    public int stringLength(int address, int limit) {
+        return memory.stringLength(address, limit);
+    }
+
+    public void copyFromMemory(int address, byte[] target, int offset, int length) {
+        memory.getBytes(address, target, offset, length);
+    }
+
+    public void copyToMemory(int address, byte[] source, int offset, int length) {
+        memory.putBytes(address, source, offset, length);
+    }
+
+    /**
+     * Copies {@code length} bytes from {@code source} to {@code destination}; the ranges may overlap.
+     */
+    public void copyMemory(int destination, int source, int length) {
+        memory.copy(destination, source, length);
+    }
+
+    public void fillMemory(int address, int length, byte value) {
+        memory.fill(address, length, value);
+    }
+
+    /**
+     * @return zero if the ranges hold the same bytes, otherwise the difference of the first unsigned bytes that differ
+     */
+    public int compareMemory(int first, int second, int length) {
+        return memory.compare(first, second, length);
+    }
+
+    /**
+     * Prints {@code length} bytes of memory starting at {@code address} to the {@link #getOutput() output} as they are.
+     */
+    public void printMemory(int address, int length) {
+        getOutput().print(memory, address, length);
+    }
+
+    /**
+     * Syscall 9: moves the program break up by {@code bytes}.
+     *
+     * @return the start of the allocated block, or -1 if the heap is exhausted
+     */
+    public int sbrk(int bytes) {
+        return memory.sbrk(bytes);
     }
 
     public Integer getVariableAddress(String varName) {
@@ -621,23 +755,10 @@ public class ASMEvaluator implements AutoCloseable {
         if (address == null) {
             diagnosticService.addError("Variable not found: " + varName);
         }
-        if (debug) debugLogger.debug("Variable address: {}", address);
         return address;
     }
 
-    public void loadAddress(String targetRegister, int address) {
-        if (debug) debugLogger.debug("Loading address {} into {}", address, targetRegister);
-        setRegisterValue(new Operand(targetRegister), address);
-    }
-
-    // ------------------------------------------------
-    // Utility: Check memory bounds (maybe this should be moved to a separate class?)
-    // ------------------------------------------------
-    private void checkMemoryBounds(int address, int size) {
-        if (address < 0 || (long) address + size > MAIN_MEMORY_SIZE) {
-            diagnosticService.addError(
-                    String.format("Memory access out of bounds: address=%d size=%d", address, size)
-            );
-        }
+    public void loadAddress(int targetRegister, int address) {
+        setRegister(targetRegister, address);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,71 @@
+package me.adversing.asm.engine;
+
+import me.adversing.asm.diagnostic.DiagnosticService;
+
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.Supplier;
+
+/**
+ * Pool of reusable {@link ASMEvaluator}s for running many programs back to back.
+ * <p>
+ * {@link #acquire()} hands out an idle evaluator, or creates one if none is idle. Passing
+ * the evaluator to {@link #release} resets it and parks it for the next caller. Resetting
+ * only zeroes the pages the previous program dirtied, so a warm evaluator is much cheaper
+ * than a new one. Idle evaluators are reused most-recently-released first, so their memory
+ * is still in cache.
+ * <p>
+ * Evaluators that grew past {@link #MAX_RETAINED_PAGES} are closed on release rather than
+ * pooled, so one large program does not pin its memory for good.
+ * <p>
+ * Each evaluator gets its own {@link DiagnosticService}. Callers read it through
+ * {@link ASMEvaluator#getDiagnosticService()}, and {@link ASMEvaluator#reset()} clears it.
+ * New evaluators start on a {@link SyscallContext} from the pool's supplier, so a pool whose
+ * callers set a context per program can keep its evaluators off the process's standard streams.
+ */
+public final class EvaluatorPool implements AutoCloseable {
+    public static final int MAX_RETAINED_PAGES = 1024; // 4 MB
+
+    private final LinkedBlockingDeque<ASMEvaluator> idle;
+    private final Supplier<SyscallContext> contexts;
+    private final boolean debug;
+
+    /**
+     * @param contexts supplies the initial context of each evaluator the pool creates
+     */
+    public EvaluatorPool(int maxIdle, Supplier<SyscallContext> contexts, boolean debug) {
+        this.idle = new LinkedBlockingDeque<>(maxIdle);
+        this.contexts = contexts;
+        this.debug = debug;
+    }
+
+    public ASMEvaluator acquire() {
+        ASMEvaluator evaluator = idle.pollFirst();
+        return evaluator != null ? evaluator : ASMEvaluator.create(new DiagnosticService(), contexts.get(), debug);
+    }
+
+    /**
+     * Returns an evaluator obtained from {@link #acquire()}. The program it ran must have finished.
+     */
+    public void release(ASMEvaluator evaluator) {
+        if (evaluator.isClosed() || evaluator.getResidentPages() > MAX_RETAINED_PAGES) {
+            evaluator.close();
+            return;
+        }
+        evaluator.reset();
+        if (!idle.offerFirst(evaluator)) {
+            evaluator.close();
+        }
+    }
+
+    public int idleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        ASMEvaluator evaluator;
+        while ((evaluator = idle.pollFirst()) != null) {
+            evaluator.close();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package me.adversing.asm.engine;
+
+import java.util.Arrays;
+
+/**
+ * How an {@link ASMEvaluator} runs a verified program.
+ */
+public enum ExecutionMode {
+    /**
+     * Dispatches every step through {@code InstructionHandler.execute}.
+     */
+    INTERPRETED,
+
+    /**
+     * Compiles each instruction into a {@link me.adversing.asm.program.CompiledInstruction}
+     * first and runs them with a {@code pc = code[pc].run(evaluator)} loop.
+     */
+    THREADED,
+
+    /**
+     * Starts out {@link #THREADED} and compiles hot blocks into hidden JVM classes
+     * that keep MIPS registers in locals, see {@link me.adversing.asm.jit.TieredCompiler}.
+     */
+    TIERED;
+
+    public static ExecutionMode fromString(String mode) {
+        return Arrays.stream(ExecutionMode.values())
+                .filter(m -> m.name().equalsIgnoreCase(mode))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Invalid execution mode: " + mode));
+    }
+}
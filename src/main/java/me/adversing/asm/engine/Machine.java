@@ -0,0 +1,275 @@
+package me.adversing.asm.engine;
+
+import me.adversing.asm.Parser;
+import me.adversing.asm.diagnostic.DiagnosticService;
+import me.adversing.asm.diagnostic.exception.InvalidProgramStructureException;
+import me.adversing.asm.engine.RunResult.Status;
+import me.adversing.asm.instruction.Instruction;
+import me.adversing.asm.program.DataSegment;
+import me.adversing.asm.program.DecodedProgram;
+import me.adversing.asm.program.ProgramDecoder;
+import me.adversing.asm.program.ProgramImage;
+import me.adversing.asm.program.ProgramLoader;
+import me.adversing.asm.program.ProgramVerifier;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embedding entry point: an assembled program that can be run any number of times, e.g.
+ * {@code Machine.load(path).run(RunLimits.NONE.withTimeout(1000))}.
+ * <p>
+ * A run never terminates the JVM and never throws for anything the program does: the exit
+ * code, the output, the counters and all diagnostics come back in a {@link RunResult}.
+ * Programs that failed to assemble still load; their runs report the assembly errors.
+ * <p>
+ * A machine is immutable and may be run from several threads at once. Each run executes on
+ * the calling thread with an evaluator of its own, or with one the caller passes in, e.g. from
+ * an {@link EvaluatorPool}. Time limits are enforced by a shared daemon timer thread.
+ * <p>
+ * The data segment is installed once, when the program is loaded, and kept as a
+ * {@link MachineSnapshot}. Every run starts from that snapshot, sharing its pages
+ * copy-on-write, so repeated runs do not copy the initialized data again.
+ */
+public final class Machine {
+    private static final ScheduledThreadPoolExecutor TIMER = createTimer();
+
+    private final DecodedProgram program;
+    private final @Nullable MachineSnapshot initialState; // null if the program cannot run
+    private final List<String> errors;
+    private final List<String> warnings;
+    private final ExecutionMode executionMode;
+
+    private Machine(DecodedProgram program, @Nullable MachineSnapshot initialState, List<String> errors,
+                    List<String> warnings, ExecutionMode executionMode) {
+        this.program = program;
+        this.initialState = initialState;
+        this.errors = List.copyOf(errors);
+        this.warnings = List.copyOf(warnings);
+        this.executionMode = executionMode;
+    }
+
+    // ------------------------------------------------
+    // Loading
+    // ------------------------------------------------
+    /**
+     * Loads an {@code .asm} file, reusing and writing the cached {@code .asmc} image.
+     */
+    public static Machine load(Path file) throws IOException, InvalidProgramStructureException {
+        return load(file, true);
+    }
+
+    /**
+     * Loads an {@code .asm} file, see {@link ProgramLoader}.
+     *
+     * @throws InvalidProgramStructureException if the file is not a non-empty {@code .asm} file
+     *                                          or its data does not fit its directives
+     */
+    public static Machine load(Path file, boolean useCache) throws IOException, InvalidProgramStructureException {
+        DiagnosticService diagnosticService = new DiagnosticService();
+        ProgramImage image = new ProgramLoader(diagnosticService, useCache).load(file.toFile());
+        return decode(image, diagnosticService);
+    }
+
+    /**
+     * Assembles program text that does not live in a file.
+     *
+     * @throws InvalidProgramStructureException if the data does not fit its directives
+     */
+    public static Machine assemble(CharSequence source) throws InvalidProgramStructureException {
+        DiagnosticService diagnosticService = new DiagnosticService();
+        Parser parser = new Parser(diagnosticService);
+        List<Instruction> instructions = parser.parse(source);
+        ProgramImage image = new ProgramImage(instructions, parser.getLabels(),
+                DataSegment.layout(parser.getVariables().values()));
+        return decode(image, diagnosticService);
+    }
+
+    private static Machine decode(ProgramImage image, DiagnosticService diagnosticService) {
+        DecodedProgram program = new ProgramDecoder(diagnosticService).decode(image.getInstructions(), image.getLabels());
+        new ProgramVerifier(diagnosticService).verify(program);
+        MachineSnapshot initialState = diagnosticService.hasErrors() ? null : initialState(image);
+        return new Machine(program, initialState, diagnosticService.getErrors(), diagnosticService.getWarnings(),
+                ExecutionMode.INTERPRETED);
+    }
+
+    /**
+     * @return the state every run starts from: a fresh evaluator with the data segment installed
+     */
+    private static MachineSnapshot initialState(ProgramImage image) {
+        try (ASMEvaluator evaluator = new ASMEvaluator(new DiagnosticService(), SyscallContext.discard())) {
+            evaluator.installDataSegment(image.getData());
+            return evaluator.snapshot();
+        }
+    }
+
+    /**
+     * @return a machine running the same program in {@code executionMode}
+     */
+    public Machine withExecutionMode(ExecutionMode executionMode) {
+        return new Machine(program, initialState, errors, warnings, executionMode);
+    }
+
+    /**
+     * @return whether the program assembled without errors, i.e. whether runs execute it
+     */
+    public boolean isRunnable() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * @return the errors reported while assembling the program
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the warnings reported while assembling the program
+     */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    // ------------------------------------------------
+    // Running
+    // ------------------------------------------------
+    /**
+     * Runs the program with empty input and captures its output in the result.
+     */
+    public RunResult run(RunLimits limits) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        return run(limits, Reader.nullReader(), output).withOutput(output.toByteArray());
+    }
+
+    /**
+     * Runs the program on a new evaluator, {@link MachineSnapshot#fork forked} from the loaded
+     * state, that reads {@code input} and writes {@code output}. Both streams stay open;
+     * {@code output} is flushed when the program ends.
+     */
+    public RunResult run(RunLimits limits, Reader input, OutputStream output) {
+        if (initialState == null) {
+            return notRunnable();
+        }
+        SyscallContext context = new SyscallContext(input, new ProgramOutput(output, false));
+        try (ASMEvaluator evaluator = initialState.fork(new DiagnosticService(), context, false)) {
+            return execute(evaluator, limits);
+        }
+    }
+
+    /**
+     * Runs the program on {@code evaluator}, which first {@link ASMEvaluator#restore restores}
+     * the loaded state and keeps its {@link SyscallContext}. The caller owns the evaluator and
+     * may {@link ASMEvaluator#requestHalt() halt} it from another thread; the result's output
+     * is empty since it went to the evaluator's context.
+     */
+    public RunResult run(ASMEvaluator evaluator, RunLimits limits) {
+        if (initialState == null) {
+            return notRunnable();
+        }
+        evaluator.restore(initialState);
+        return execute(evaluator, limits);
+    }
+
+    private RunResult notRunnable() {
+        return new RunResult(Status.ERROR, 0, new byte[0], 0, 0, errors, warnings);
+    }
+
+    /**
+     * Runs the program on an evaluator that is already in the loaded state.
+     */
+    private RunResult execute(ASMEvaluator evaluator, RunLimits limits) {
+        List<String> runErrors = new ArrayList<>(errors);
+        List<String> runWarnings = new ArrayList<>(warnings);
+
+        evaluator.setExecutionMode(executionMode);
+        evaluator.setInstructionLimit(limits.maxInstructions());
+
+        Deadline deadline = new Deadline(evaluator);
+        ScheduledFuture<?> expiry = limits.timeoutMillis() > 0
+                ? TIMER.schedule(deadline, limits.timeoutMillis(), TimeUnit.MILLISECONDS)
+                : null;
+        String failure = null;
+        long start = System.nanoTime();
+        try {
+            evaluator.evaluate(program);
+        } catch (RuntimeException e) {
+            failure = "An error occurred during evaluation: " + e;
+        } finally {
+            if (expiry != null) {
+                expiry.cancel(false);
+            }
+        }
+        long wallNanos = System.nanoTime() - start;
+        // a timer that fires after the program ended on its own halts nothing
+        boolean timedOut = deadline.finish() && evaluator.isHalted();
+
+        DiagnosticService diagnostics = evaluator.getDiagnosticService();
+        runErrors.addAll(diagnostics.getErrors());
+        runWarnings.addAll(diagnostics.getWarnings());
+        if (failure != null) {
+            runErrors.add(failure);
+        }
+
+        Status status;
+        if (timedOut) {
+            status = Status.TIMEOUT;
+            runErrors.add("Evaluation timed out after " + limits.timeoutMillis() + " ms.");
+        } else if (evaluator.isInstructionLimitReached()) {
+            status = Status.LIMIT;
+        } else if (!runErrors.isEmpty()) {
+            status = Status.ERROR;
+        } else {
+            status = evaluator.getExitCode() != 0 ? Status.EXIT : Status.OK;
+        }
+        return new RunResult(status, evaluator.getExitCode(), new byte[0], evaluator.getRetiredInstructions(),
+                wallNanos, runErrors, runWarnings);
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1,
+                Thread.ofPlatform().name("machine-timer").daemon().factory());
+        timer.setRemoveOnCancelPolicy(true); // finished runs do not leave their timeouts queued
+        return timer;
+    }
+
+    /**
+     * Halts a run's evaluator when the time limit expires, unless the run already finished:
+     * once {@link #finish()} has run, a late timer can no longer halt the evaluator's next run.
+     */
+    private static final class Deadline implements Runnable {
+        private final ASMEvaluator evaluator;
+        private boolean finished;
+        private boolean expired;
+
+        Deadline(ASMEvaluator evaluator) {
+            this.evaluator = evaluator;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (!finished) {
+                expired = true;
+                evaluator.requestHalt();
+            }
+        }
+
+        /**
+         * @return whether the time limit expired before the run finished; the evaluator may
+         *         still have ended the program on its own before it saw the halt request
+         */
+        synchronized boolean finish() {
+            finished = true;
+            return expired;
+        }
+    }
+}
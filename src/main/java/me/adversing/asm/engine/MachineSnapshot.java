@@ -0,0 +1,48 @@
+package me.adversing.asm.engine;
+
+import me.adversing.asm.diagnostic.DiagnosticService;
+
+import java.util.Map;
+
+/**
+ * Frozen machine state taken with {@link ASMEvaluator#snapshot()}: the register files,
+ * CP0, the FP condition flag, the variable table and the memory image, including the
+ * heap break.
+ * <p>
+ * A {@link Machine} takes one right after installing its data segment, and starts every run
+ * from it: a new evaluator is {@link #fork forked} from it, and a reused one
+ * {@link ASMEvaluator#restore restores} it. Either way the snapshot's memory pages are shared
+ * copy-on-write, so the initialized data segment is never copied again; each run only pays
+ * for the pages it writes.
+ */
+public final class MachineSnapshot {
+    final int[] registers;
+    final double[] fpRegisters;
+    final int[] cp0Registers;
+    final boolean fpConditionFlag;
+    final Map<String, Integer> variableAddresses;
+    final Memory.Snapshot memory;
+
+    MachineSnapshot(int[] registers, double[] fpRegisters, int[] cp0Registers, boolean fpConditionFlag,
+                    Map<String, Integer> variableAddresses, Memory.Snapshot memory) {
+        this.registers = registers;
+        this.fpRegisters = fpRegisters;
+        this.cp0Registers = cp0Registers;
+        this.fpConditionFlag = fpConditionFlag;
+        this.variableAddresses = variableAddresses;
+        this.memory = memory;
+    }
+
+    /**
+     * @return a new evaluator in exactly this state, running its syscalls against {@code syscallContext}
+     */
+    public ASMEvaluator fork(DiagnosticService diagnosticService, SyscallContext syscallContext, boolean debug) {
+        ASMEvaluator evaluator = ASMEvaluator.create(diagnosticService, syscallContext, debug);
+        evaluator.restore(this);
+        return evaluator;
+    }
+
+    public int pageCount() {
+        return memory.pageCount();
+    }
+}
@@ -0,0 +1,590 @@
+package me.adversing.asm.engine;
+
+import lombok.Getter;
+import me.adversing.asm.diagnostic.exception.MemoryAccessException;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Sparse, paged model of the 32-bit MIPS address space.
+ * <p>
+ * An address is split into a 10-bit directory index, a 10-bit table index and a 12-bit
+ * page offset. Pages are native {@link MemorySegment}s owned by one shared {@link Arena},
+ * allocated the first time they are written; reading a page that was never written yields
+ * zeros without allocating it. The last page read and the last page written are cached, so
+ * runs of accesses to the same page skip the table walk. Values go through big-endian
+ * layouts, so memory holds exactly the bytes a MIPS machine would.
+ * <p>
+ * Pages written since the last {@link #reset()} are tracked as dirty, so resetting only has
+ * to zero those and the allocated pages can be reused by the next program.
+ * <p>
+ * A {@link Snapshot} freezes the current pages. Any number of memories can
+ * {@link #restore} it and share its pages copy-on-write: a page is copied into the
+ * restoring memory only when that memory first writes to it.
+ * <p>
+ * Every access is checked up front with a single mask test: the address must lie in user
+ * space (below {@code 0x80000000}) and be aligned to the access size. Failing accesses raise
+ * a {@link MemoryAccessException} and leave memory untouched. Doublewords only need word
+ * alignment, since {@code ldc1}/{@code sdc1} are commonly used on word-aligned stack slots.
+ * <p>
+ * Bulk operations (searching, copying, filling and comparing byte ranges) work one page at a
+ * time. They check the whole range before touching memory, have no alignment requirement, and
+ * scan eight bytes per step with word-at-a-time (SWAR) tricks or
+ * {@link MemorySegment#mismatch}, which the JIT compiles to vector instructions.
+ * <p>
+ * Segments sit at the conventional MIPS (SPIM/MARS) addresses: static data at
+ * {@link #DATA_BASE}, the heap growing up from {@link #HEAP_BASE} and the stack growing
+ * down from {@link #STACK_POINTER}.
+ */
+public final class Memory implements AutoCloseable {
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfInt   INT   = ValueLayout.JAVA_INT.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong  LONG  = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    // Bulk scans read eight bytes at a time; little-endian puts the lowest address in the lowest byte
+    private static final ValueLayout.OfLong SCAN = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final long LOW_BITS  = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    // ------------------------------------------------
+    // Segment layout
+    // ------------------------------------------------
+    public static final int DATA_BASE      = 0x10010000;
+    public static final int GLOBAL_POINTER = 0x10008000;
+    public static final int HEAP_BASE      = 0x10040000;
+    public static final int STACK_POINTER  = 0x7FFFEFFC;
+
+    // Address bits that must be clear for an access: the kernel-space bit plus the alignment bits
+    private static final int KERNEL_SPACE  = 0x80000000;
+    private static final int HALF_FAULT    = KERNEL_SPACE | 1;
+    private static final int WORD_FAULT    = KERNEL_SPACE | 3;
+    private static final long USER_SPACE_END = 0x80000000L;
+
+    // ------------------------------------------------
+    // Page table geometry
+    // ------------------------------------------------
+    public static final int PAGE_SHIFT = 12;
+    public static final int PAGE_SIZE  = 1 << PAGE_SHIFT;  // 4 KB
+    private static final int PAGE_MASK  = PAGE_SIZE - 1;
+    private static final int TABLE_SHIFT = 10;
+    private static final int TABLE_SIZE  = 1 << TABLE_SHIFT;
+    private static final int TABLE_MASK  = TABLE_SIZE - 1;
+
+    // Stands in for pages that were never written, so bulk reads need no special case for them
+    private static final MemorySegment ZERO_PAGE = Arena.global().allocate(PAGE_SIZE, PAGE_SIZE);
+
+    private final Arena arena = Arena.ofShared();
+    private final MemorySegment[][] directory = new MemorySegment[TABLE_SIZE][];
+    @Getter private int pageCount;  // pages owned by this memory
+
+    // Last pages read and written; page numbers are 20 bits wide, so -1 never matches.
+    // A page only enters the write cache once it is marked dirty.
+    private int cachedReadPage = -1;
+    private MemorySegment cachedReadSegment;
+    private int cachedWritePage = -1;
+    private MemorySegment cachedWriteSegment;
+
+    private final BitSet dirty = new BitSet();
+    private final List<MemorySegment> dirtyPages = new ArrayList<>();
+
+    // Pages mapped from a snapshot; they are read-only and copied on the first write
+    private final BitSet shared = new BitSet();
+    // Owned, zero-filled pages displaced by a restore, reused before allocating new ones
+    private final List<MemorySegment> sparePages = new ArrayList<>();
+
+    // Current program break, moved by sbrk
+    @Getter private int heapBreak = HEAP_BASE;
+
+    // ------------------------------------------------
+    // Loads
+    // ------------------------------------------------
+    public byte getByte(int address) {
+        if (address < 0) {
+            throw new MemoryAccessException(address, Byte.BYTES, false);
+        }
+        MemorySegment page = readPage(address);
+        return page == null ? 0 : page.get(ValueLayout.JAVA_BYTE, address & PAGE_MASK);
+    }
+
+    public short getShort(int address) {
+        if ((address & HALF_FAULT) != 0) {
+            throw new MemoryAccessException(address, Short.BYTES, false);
+        }
+        MemorySegment page = readPage(address);
+        return page == null ? 0 : page.get(SHORT, address & PAGE_MASK);
+    }
+
+    public int getInt(int address) {
+        if ((address & WORD_FAULT) != 0) {
+            throw new MemoryAccessException(address, Integer.BYTES, false);
+        }
+        MemorySegment page = readPage(address);
+        return page == null ? 0 : page.get(INT, address & PAGE_MASK);
+    }
+
+    public long getLong(int address) {
+        if ((address & WORD_FAULT) != 0 || address + Integer.BYTES < 0) {
+            throw new MemoryAccessException(address, Long.BYTES, false);
+        }
+        int offset = address & PAGE_MASK;
+        if (offset > PAGE_SIZE - Long.BYTES) {
+            // the second word starts the next page
+            return ((long) getInt(address) << 32) | (getInt(address + Integer.BYTES) & 0xFFFFFFFFL);
+        }
+        MemorySegment page = readPage(address);
+        return page == null ? 0 : page.get(LONG, offset);
+    }
+
+    // ------------------------------------------------
+    // Stores
+    // ------------------------------------------------
+    public void putByte(int address, byte value) {
+        if (address < 0) {
+            throw new MemoryAccessException(address, Byte.BYTES, true);
+        }
+        writePage(address).set(ValueLayout.JAVA_BYTE, address & PAGE_MASK, value);
+    }
+
+    public void putShort(int address, short value) {
+        if ((address & HALF_FAULT) != 0) {
+            throw new MemoryAccessException(address, Short.BYTES, true);
+        }
+        writePage(address).set(SHORT, address & PAGE_MASK, value);
+    }
+
+    public void putInt(int address, int value) {
+        if ((address & WORD_FAULT) != 0) {
+            throw new MemoryAccessException(address, Integer.BYTES, true);
+        }
+        writePage(address).set(INT, address & PAGE_MASK, value);
+    }
+
+    public void putLong(int address, long value) {
+        if ((address & WORD_FAULT) != 0 || address + Integer.BYTES < 0) {
+            throw new MemoryAccessException(address, Long.BYTES, true);
+        }
+        int offset = address & PAGE_MASK;
+        if (offset > PAGE_SIZE - Long.BYTES) {
+            putInt(address, (int) (value >> 32));
+            putInt(address + Integer.BYTES, (int) value);
+            return;
+        }
+        writePage(address).set(LONG, offset, value);
+    }
+
+    /**
+     * Copies {@code source} to memory starting at {@code address}, one page-sized chunk at a time.
+     * All-zero chunks headed for pages that were never written are skipped, so zero-filled
+     * regions (e.g. {@code .space}) do not allocate pages.
+     */
+    public void putBytes(int address, MemorySegment source) {
+        long size = source.byteSize();
+        if (address < 0 || address + size - 1 > Integer.MAX_VALUE) {
+            throw new MemoryAccessException(address, (int) Math.min(size, Integer.MAX_VALUE), true);
+        }
+        long copied = 0;
+        while (copied < size) {
+            int target = (int) (address + copied);
+            int offset = target & PAGE_MASK;
+            long chunk = Math.min(PAGE_SIZE - offset, size - copied);
+            if (readPage(target) != null || MemorySegment.mismatch(source, copied, copied + chunk, ZERO_PAGE, 0, chunk) >= 0) {
+                MemorySegment.copy(source, copied, writePage(target), offset, chunk);
+            }
+            copied += chunk;
+        }
+    }
+
+    // ------------------------------------------------
+    // Bulk access
+    // ------------------------------------------------
+
+    /**
+     * Finds the first occurrence of {@code value} in {@code [address, address + length)}.
+     *
+     * @return its offset from {@code address}, or -1 if the range does not contain it
+     */
+    public int indexOf(int address, int length, byte value) {
+        checkRange(address, length, false);
+        long pattern = (value & 0xFF) * LOW_BITS;
+        for (int scanned = 0; scanned < length; ) {
+            int at = address + scanned;
+            int offset = at & PAGE_MASK;
+            int chunk = Math.min(PAGE_SIZE - offset, length - scanned);
+            int found = indexOf(pageOrZero(at), offset, chunk, value, pattern);
+            if (found >= 0) {
+                return scanned + found;
+            }
+            scanned += chunk;
+        }
+        return -1;
+    }
+
+    private static int indexOf(MemorySegment page, int offset, int length, byte value, long pattern) {
+        int i = 0;
+        for (; i <= length - Long.BYTES; i += Long.BYTES) {
+            // the bytes equal to value become zero; the high bit of the first zero byte is
+            // exact (later ones may be spurious, earlier ones cannot be)
+            long word = page.get(SCAN, offset + i) ^ pattern;
+            long zeros = (word - LOW_BITS) & ~word & HIGH_BITS;
+            if (zeros != 0) {
+                return i + (Long.numberOfTrailingZeros(zeros) >>> 3);
+            }
+        }
+        for (; i < length; i++) {
+            if (page.get(ValueLayout.JAVA_BYTE, offset + i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the length of the NUL-terminated string at {@code address}, or -1 if no terminator
+     *         is found within {@code limit} bytes
+     * @throws MemoryAccessException if the string runs into kernel space
+     */
+    public int stringLength(int address, int limit) {
+        if (address < 0) {
+            throw new MemoryAccessException(address, Byte.BYTES, false);
+        }
+        int userLimit = (int) Math.min(limit, USER_SPACE_END - address);
+        int length = indexOf(address, userLimit, (byte) 0);
+        if (length < 0 && userLimit < limit) {
+            throw new MemoryAccessException(KERNEL_SPACE, Byte.BYTES, false);
+        }
+        return length;
+    }
+
+    /**
+     * Copies {@code length} bytes starting at {@code address} into {@code target[offset..]}.
+     */
+    public void getBytes(int address, byte[] target, int offset, int length) {
+        checkRange(address, length, false);
+        for (int copied = 0; copied < length; ) {
+            int at = address + copied;
+            int chunk = Math.min(PAGE_SIZE - (at & PAGE_MASK), length - copied);
+            MemorySegment.copy(pageOrZero(at), ValueLayout.JAVA_BYTE, at & PAGE_MASK, target, offset + copied, chunk);
+            copied += chunk;
+        }
+    }
+
+    /**
+     * Copies {@code source[offset, offset + length)} to memory starting at {@code address}.
+     */
+    public void putBytes(int address, byte[] source, int offset, int length) {
+        checkRange(address, length, true);
+        for (int copied = 0; copied < length; ) {
+            int at = address + copied;
+            int chunk = Math.min(PAGE_SIZE - (at & PAGE_MASK), length - copied);
+            MemorySegment.copy(source, offset + copied, writePage(at), ValueLayout.JAVA_BYTE, at & PAGE_MASK, chunk);
+            copied += chunk;
+        }
+    }
+
+    /**
+     * Copies {@code length} bytes from {@code source} to {@code destination}. The ranges may
+     * overlap: the result is as if the source were first copied to a temporary buffer.
+     */
+    public void copy(int destination, int source, int length) {
+        checkRange(source, length, false);
+        checkRange(destination, length, true);
+        if (destination > source && destination - source < length) {
+            // the destination overlaps the end of the source: copy backwards so every
+            // source byte is read before it is overwritten
+            for (int remaining = length; remaining > 0; ) {
+                int chunk = Math.min(remaining, Math.min(
+                        ((source + remaining - 1) & PAGE_MASK) + 1,
+                        ((destination + remaining - 1) & PAGE_MASK) + 1));
+                remaining -= chunk;
+                copyWithinPages(destination + remaining, source + remaining, chunk);
+            }
+        } else {
+            for (int copied = 0; copied < length; ) {
+                int chunk = Math.min(length - copied, Math.min(
+                        PAGE_SIZE - ((source + copied) & PAGE_MASK),
+                        PAGE_SIZE - ((destination + copied) & PAGE_MASK)));
+                copyWithinPages(destination + copied, source + copied, chunk);
+                copied += chunk;
+            }
+        }
+    }
+
+    // neither range crosses a page boundary
+    private void copyWithinPages(int destination, int source, int length) {
+        MemorySegment from = readPage(source);
+        if (from == null && readPage(destination) == null) {
+            return; // zeros onto zeros
+        }
+        MemorySegment to = writePage(destination);
+        MemorySegment.copy(from == null ? ZERO_PAGE : from, source & PAGE_MASK, to, destination & PAGE_MASK, length);
+    }
+
+    /**
+     * Sets {@code length} bytes starting at {@code address} to {@code value}.
+     */
+    public void fill(int address, int length, byte value) {
+        checkRange(address, length, true);
+        long pattern = (value & 0xFF) * LOW_BITS;
+        for (int filled = 0; filled < length; ) {
+            int at = address + filled;
+            int offset = at & PAGE_MASK;
+            int chunk = Math.min(PAGE_SIZE - offset, length - filled);
+            if (value != 0 || readPage(at) != null) { // pages never written are zero already
+                MemorySegment page = writePage(at);
+                int i = 0;
+                for (; i <= chunk - Long.BYTES; i += Long.BYTES) {
+                    page.set(SCAN, offset + i, pattern);
+                }
+                for (; i < chunk; i++) {
+                    page.set(ValueLayout.JAVA_BYTE, offset + i, value);
+                }
+            }
+            filled += chunk;
+        }
+    }
+
+    /**
+     * Compares two ranges of {@code length} bytes as unsigned bytes.
+     *
+     * @return zero if they are equal, otherwise the difference between the first pair of bytes that differ
+     */
+    public int compare(int first, int second, int length) {
+        checkRange(first, length, false);
+        checkRange(second, length, false);
+        for (int compared = 0; compared < length; ) {
+            int a = first + compared;
+            int b = second + compared;
+            int chunk = Math.min(length - compared, Math.min(PAGE_SIZE - (a & PAGE_MASK), PAGE_SIZE - (b & PAGE_MASK)));
+            MemorySegment pageA = pageOrZero(a);
+            MemorySegment pageB = pageOrZero(b);
+            long mismatch = MemorySegment.mismatch(
+                    pageA, a & PAGE_MASK, (a & PAGE_MASK) + chunk,
+                    pageB, b & PAGE_MASK, (b & PAGE_MASK) + chunk);
+            if (mismatch >= 0) {
+                return Byte.toUnsignedInt(pageA.get(ValueLayout.JAVA_BYTE, (a & PAGE_MASK) + mismatch))
+                        - Byte.toUnsignedInt(pageB.get(ValueLayout.JAVA_BYTE, (b & PAGE_MASK) + mismatch));
+            }
+            compared += chunk;
+        }
+        return 0;
+    }
+
+    /**
+     * Checks that {@code [address, address + length)} lies in user space, before a bulk
+     * operation touches any of it.
+     */
+    private static void checkRange(int address, int length, boolean store) {
+        if (address < 0 || length < 0 || address + (long) length > USER_SPACE_END) {
+            throw new MemoryAccessException(address, length, store);
+        }
+    }
+
+    private MemorySegment pageOrZero(int address) {
+        MemorySegment page = readPage(address);
+        return page == null ? ZERO_PAGE : page;
+    }
+
+    // ------------------------------------------------
+    // Heap
+    // ------------------------------------------------
+
+    /**
+     * Moves the program break up by {@code bytes}, keeping it word aligned.
+     *
+     * @return the previous break, or -1 if the heap would run into the stack
+     */
+    public int sbrk(int bytes) {
+        long newBreak = (heapBreak + (long) bytes + 3) & ~3L;
+        if (newBreak >= STACK_POINTER) {
+            return -1;
+        }
+        int previous = heapBreak;
+        heapBreak = (int) newBreak;
+        return previous;
+    }
+
+    // ------------------------------------------------
+    // Page table
+    // ------------------------------------------------
+
+    /**
+     * @return the page holding {@code address}, or {@code null} if it was never written
+     */
+    private MemorySegment readPage(int address) {
+        int page = address >>> PAGE_SHIFT;
+        if (page == cachedReadPage) {
+            return cachedReadSegment;
+        }
+        MemorySegment[] table = directory[page >>> TABLE_SHIFT];
+        MemorySegment segment = table == null ? null : table[page & TABLE_MASK];
+        if (segment != null) {
+            cachedReadPage = page;
+            cachedReadSegment = segment;
+        }
+        return segment;
+    }
+
+    /**
+     * @return the page holding {@code address}, allocating it (or copying it out of a
+     *         snapshot) if needed and marking it dirty
+     */
+    private MemorySegment writePage(int address) {
+        int page = address >>> PAGE_SHIFT;
+        if (page == cachedWritePage) {
+            return cachedWriteSegment;
+        }
+        MemorySegment[] table = directory[page >>> TABLE_SHIFT];
+        if (table == null) {
+            table = directory[page >>> TABLE_SHIFT] = new MemorySegment[TABLE_SIZE];
+        }
+        MemorySegment segment = table[page & TABLE_MASK];
+        if (segment == null) {
+            segment = allocatePage();
+            table[page & TABLE_MASK] = segment;
+        } else if (shared.get(page)) {
+            // copy-on-write: the first store to a snapshot page takes a private copy
+            segment = allocatePage().copyFrom(segment);
+            table[page & TABLE_MASK] = segment;
+            shared.clear(page);
+            if (page == cachedReadPage) {
+                cachedReadSegment = segment;
+            }
+        }
+        if (!dirty.get(page)) {
+            dirty.set(page);
+            dirtyPages.add(segment);
+        }
+        cachedWritePage = page;
+        cachedWriteSegment = segment;
+        return segment;
+    }
+
+    /**
+     * @return a zero-filled page, reusing one displaced by {@link #restore} if possible
+     */
+    private MemorySegment allocatePage() {
+        if (!sparePages.isEmpty()) {
+            return sparePages.removeLast();
+        }
+        pageCount++;
+        return arena.allocate(PAGE_SIZE, PAGE_SIZE);
+    }
+
+    /**
+     * Returns memory to its initial all-zero state by clearing the dirty pages only.
+     * Allocated pages are kept for the next program; pages borrowed from a snapshot are dropped.
+     */
+    public void reset() {
+        for (MemorySegment page : dirtyPages) {
+            page.fill((byte) 0);
+        }
+        dirtyPages.clear();
+        dirty.clear();
+        for (int page = shared.nextSetBit(0); page >= 0; page = shared.nextSetBit(page + 1)) {
+            directory[page >>> TABLE_SHIFT][page & TABLE_MASK] = null;
+        }
+        shared.clear();
+        invalidateCaches();
+        heapBreak = HEAP_BASE;
+    }
+
+    private void invalidateCaches() {
+        cachedReadPage = -1;
+        cachedReadSegment = null;
+        cachedWritePage = -1;
+        cachedWriteSegment = null;
+    }
+
+    // ------------------------------------------------
+    // Snapshots
+    // ------------------------------------------------
+
+    /**
+     * Captures the current contents of memory. Pages this memory owns are copied once into
+     * read-only pages that live as long as something references them; pages that already
+     * come from a snapshot are immutable and are shared as they are.
+     */
+    public Snapshot snapshot() {
+        Arena snapshotArena = Arena.ofAuto();
+        List<Integer> pageNumbers = new ArrayList<>();
+        List<MemorySegment> pages = new ArrayList<>();
+        for (int directoryIndex = 0; directoryIndex < TABLE_SIZE; directoryIndex++) {
+            MemorySegment[] table = directory[directoryIndex];
+            if (table == null) {
+                continue;
+            }
+            for (int tableIndex = 0; tableIndex < TABLE_SIZE; tableIndex++) {
+                MemorySegment segment = table[tableIndex];
+                if (segment == null) {
+                    continue;
+                }
+                int page = (directoryIndex << TABLE_SHIFT) | tableIndex;
+                pageNumbers.add(page);
+                pages.add(shared.get(page)
+                        ? segment
+                        : snapshotArena.allocate(PAGE_SIZE, PAGE_SIZE).copyFrom(segment).asReadOnly());
+            }
+        }
+        return new Snapshot(
+                pageNumbers.stream().mapToInt(Integer::intValue).toArray(),
+                pages.toArray(MemorySegment[]::new),
+                heapBreak
+        );
+    }
+
+    /**
+     * Replaces the contents of memory with {@code snapshot}. Nothing is copied up front:
+     * snapshot pages are mapped in shared and only copied when first written.
+     */
+    public void restore(Snapshot snapshot) {
+        reset();
+        for (int i = 0; i < snapshot.pageNumbers.length; i++) {
+            int page = snapshot.pageNumbers[i];
+            MemorySegment[] table = directory[page >>> TABLE_SHIFT];
+            if (table == null) {
+                table = directory[page >>> TABLE_SHIFT] = new MemorySegment[TABLE_SIZE];
+            }
+            MemorySegment owned = table[page & TABLE_MASK];
+            if (owned != null) {
+                sparePages.add(owned);  // zeroed by reset()
+            }
+            table[page & TABLE_MASK] = snapshot.pages[i];
+            shared.set(page);
+        }
+        heapBreak = snapshot.heapBreak;
+    }
+
+    /**
+     * Immutable memory image produced by {@link #snapshot()}.
+     */
+    public static final class Snapshot {
+        private final int[] pageNumbers;
+        private final MemorySegment[] pages;
+        private final int heapBreak;
+
+        private Snapshot(int[] pageNumbers, MemorySegment[] pages, int heapBreak) {
+            this.pageNumbers = pageNumbers;
+            this.pages = pages;
+            this.heapBreak = heapBreak;
+        }
+
+        public int pageCount() {
+            return pages.length;
+        }
+    }
+
+    /**
+     * Releases every page at once. Any later access fails with an
+     * {@link IllegalStateException} instead of touching freed memory.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
@@ -0,0 +1,172 @@
+package me.adversing.asm.engine;
+
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Buffered byte channel for the output of a program's print syscalls.
+ * <p>
+ * Output is collected in a fixed buffer and handed to the sink (stdout, a file, or any
+ * {@link OutputStream} such as a {@link java.io.ByteArrayOutputStream} for in-memory capture)
+ * in chunks of {@value #BUFFER_SIZE} bytes, when the evaluator finishes a program, or before
+ * the program blocks on input. Nothing is added between prints, so programs control their own
+ * line breaks. Integers, floats and doubles are formatted straight into the buffer, so printing
+ * allocates nothing.
+ * <p>
+ * Not thread-safe: a channel belongs to one {@link ASMEvaluator}. Write failures surface as
+ * {@link UncheckedIOException}s, which end the running program.
+ */
+public final class ProgramOutput implements Flushable, AutoCloseable {
+    static final int BUFFER_SIZE = 64 << 10;
+    private static final int MAX_INT_LENGTH = 11; // "-2147483648"
+
+    private final OutputStream sink;
+    private final boolean closeSink;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+
+    /**
+     * @param closeSink whether {@link #close()} also closes {@code sink}
+     */
+    public ProgramOutput(OutputStream sink, boolean closeSink) {
+        this.sink = sink;
+        this.closeSink = closeSink;
+    }
+
+    /**
+     * @return a channel to the process's standard output, which is flushed but never closed
+     */
+    public static ProgramOutput stdout() {
+        return new ProgramOutput(System.out, false);
+    }
+
+    /**
+     * @return a channel that replaces the contents of {@code file}, closed with the channel
+     */
+    public static ProgramOutput file(Path file) throws IOException {
+        return new ProgramOutput(new FileOutputStream(file.toFile()), true);
+    }
+
+    // ------------------------------------------------
+    // Printing
+    // ------------------------------------------------
+    public void write(byte b) {
+        if (position == BUFFER_SIZE) {
+            drain();
+        }
+        buffer[position++] = b;
+    }
+
+    /**
+     * Prints {@code value} in decimal.
+     */
+    public void print(int value) {
+        if (BUFFER_SIZE - position < MAX_INT_LENGTH) {
+            drain();
+        }
+        long magnitude = value;
+        if (magnitude < 0) {
+            buffer[position++] = '-';
+            magnitude = -magnitude;
+        }
+        int end = position + digitCount(magnitude);
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + magnitude % 10);
+            magnitude /= 10;
+        }
+        position = end;
+    }
+
+    /**
+     * Prints {@code value} the way {@link Float#toString(float)} formats it.
+     */
+    public void print(float value) {
+        if (BUFFER_SIZE - position < ShortestDecimal.MAX_LENGTH) {
+            drain();
+        }
+        position = ShortestDecimal.write(value, buffer, position);
+    }
+
+    /**
+     * Prints {@code value} the way {@link Double#toString(double)} formats it.
+     */
+    public void print(double value) {
+        if (BUFFER_SIZE - position < ShortestDecimal.MAX_LENGTH) {
+            drain();
+        }
+        position = ShortestDecimal.write(value, buffer, position);
+    }
+
+    /**
+     * Prints {@code length} bytes of {@code memory} starting at {@code address}, copying them
+     * straight into the buffer.
+     */
+    void print(Memory memory, int address, int length) {
+        for (int printed = 0; printed < length; ) {
+            if (position == BUFFER_SIZE) {
+                drain();
+            }
+            int chunk = Math.min(length - printed, BUFFER_SIZE - position);
+            memory.getBytes(address + printed, buffer, position, chunk);
+            position += chunk;
+            printed += chunk;
+        }
+    }
+
+    private static int digitCount(long magnitude) {
+        int digits = 1;
+        while (magnitude >= 10) {
+            magnitude /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    // ------------------------------------------------
+    // Flushing
+    // ------------------------------------------------
+    /**
+     * Writes the buffered bytes to the sink and flushes it.
+     */
+    @Override
+    public void flush() {
+        drain();
+        try {
+            sink.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Flushes the channel and, if it owns the sink, closes it.
+     */
+    @Override
+    public void close() {
+        flush();
+        if (closeSink) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void drain() {
+        if (position == 0) {
+            return;
+        }
+        try {
+            sink.write(buffer, 0, position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package me.adversing.asm.engine;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Register name to register-file index tables.
+ * <p>
+ * Integer registers follow the MIPS numbering: {@code $0..$31} (also reachable by their
+ * conventional names such as {@code $zero}, {@code $sp} or {@code $s0}), followed by
+ * {@code $hi} and {@code $lo}.
+ * <p>
+ * Names are resolved once when an {@link me.adversing.asm.Operand} is created, so the
+ * evaluator only ever deals with small integer indices at run time.
+ */
+@UtilityClass
+public final class Registers {
+
+    public static final int NONE = -1;
+
+    public static final int ZERO = 0;
+    public static final int GP   = 28;
+    public static final int SP   = 29;
+    public static final int RA   = 31;
+    public static final int HI   = 32;
+    public static final int LO   = 33;
+
+    public static final int BAD_VADDR = 8;
+    public static final int STATUS    = 12;
+    public static final int CAUSE     = 13;
+    public static final int EPC       = 14;
+
+    public static final int GPR_COUNT          = 32;
+    public static final int INT_REGISTER_COUNT = GPR_COUNT + 2;  // $0..$31, $hi, $lo
+    public static final int FP_REGISTER_COUNT  = 32;
+    public static final int CP0_REGISTER_COUNT = 32;
+
+    private static final String[] GPR_NAMES = {
+            "$zero", "$at", "$v0", "$v1", "$a0", "$a1", "$a2", "$a3",
+            "$t0", "$t1", "$t2", "$t3", "$t4", "$t5", "$t6", "$t7",
+            "$s0", "$s1", "$s2", "$s3", "$s4", "$s5", "$s6", "$s7",
+            "$t8", "$t9", "$k0", "$k1", "$gp", "$sp", "$fp", "$ra"
+    };
+
+    private static final String[] INT_NAMES = new String[INT_REGISTER_COUNT];
+    private static final Map<String, Integer> INT_INDICES = new HashMap<>();
+    private static final Map<String, Integer> FP_INDICES  = new HashMap<>();
+    private static final Map<String, Integer> CP0_INDICES = new HashMap<>();
+
+    static {
+        for (int i = 0; i < GPR_COUNT; i++) {
+            registerInt(GPR_NAMES[i], i);
+            INT_INDICES.put("$" + i, i);
+        }
+        INT_INDICES.put("$s8", 30);
+        registerInt("$hi", HI);
+        registerInt("$lo", LO);
+
+        for (int i = 0; i < FP_REGISTER_COUNT; i++) {
+            FP_INDICES.put("$f" + i, i);
+        }
+
+        for (int i = 0; i < CP0_REGISTER_COUNT; i++) {
+            CP0_INDICES.put("cp0_" + i, i);
+            CP0_INDICES.put("$cp0_" + i, i);
+        }
+        CP0_INDICES.put("$badvaddr", BAD_VADDR);
+        CP0_INDICES.put("$status", STATUS);
+        CP0_INDICES.put("$cause", CAUSE);
+        CP0_INDICES.put("$epc", EPC);
+    }
+
+    private static void registerInt(String name, int index) {
+        INT_NAMES[index] = name;
+        INT_INDICES.put(name, index);
+    }
+
+    /**
+     * @return the integer register index for {@code name}, or {@link #NONE} if it is not an integer register
+     */
+    public static int intIndex(String name) {
+        return INT_INDICES.getOrDefault(name, NONE);
+    }
+
+    /**
+     * @return the floating-point register index for {@code name}, or {@link #NONE} if unknown
+     */
+    public static int fpIndex(String name) {
+        return FP_INDICES.getOrDefault(name, NONE);
+    }
+
+    /**
+     * @return the CP0 register index for {@code name}, or {@link #NONE} if unknown
+     */
+    public static int cp0Index(String name) {
+        return CP0_INDICES.getOrDefault(name, NONE);
+    }
+
+    public static String intName(int index) {
+        return INT_NAMES[index];
+    }
+}
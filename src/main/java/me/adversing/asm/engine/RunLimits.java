@@ -0,0 +1,29 @@
+package me.adversing.asm.engine;
+
+/**
+ * Bounds on a single {@link Machine#run run}. A program that reaches one is halted at its next
+ * safepoint, so it may overshoot by a bounded number of instructions.
+ *
+ * @param timeoutMillis   wall-clock limit in milliseconds, or 0 for none
+ * @param maxInstructions instruction budget, {@link Long#MAX_VALUE} for none
+ */
+public record RunLimits(long timeoutMillis, long maxInstructions) {
+    public static final RunLimits NONE = new RunLimits(0, Long.MAX_VALUE);
+
+    public RunLimits {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative: " + timeoutMillis);
+        }
+        if (maxInstructions <= 0) {
+            throw new IllegalArgumentException("Instruction budget must be positive: " + maxInstructions);
+        }
+    }
+
+    public RunLimits withTimeout(long timeoutMillis) {
+        return new RunLimits(timeoutMillis, maxInstructions);
+    }
+
+    public RunLimits withMaxInstructions(long maxInstructions) {
+        return new RunLimits(timeoutMillis, maxInstructions);
+    }
+}
@@ -0,0 +1,57 @@
+package me.adversing.asm.engine;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The outcome of a {@link Machine#run run}.
+ *
+ * @param exitCode            the code passed to {@code exit2}, 0 if the program ended otherwise
+ * @param output              what the program printed when the machine captured it, empty when
+ *                            the output went to a stream supplied by the caller
+ * @param retiredInstructions the instructions the program executed
+ * @param wallNanos           how long the program ran
+ * @param errors              assembly and runtime errors, in the order they were reported
+ * @param warnings            assembly and runtime warnings
+ */
+public record RunResult(Status status, int exitCode, byte[] output, long retiredInstructions, long wallNanos,
+                        List<String> errors, List<String> warnings) {
+
+    public enum Status {
+        /** The program ended without errors and with exit code 0. */
+        OK,
+        /** The program ended through {@code exit2} with a non-zero code. */
+        EXIT,
+        /** The program failed to assemble or stopped on a runtime error. */
+        ERROR,
+        /** The program was halted when its time limit expired. */
+        TIMEOUT,
+        /** The program was halted when it used up its instruction budget. */
+        LIMIT
+    }
+
+    public RunResult {
+        errors = List.copyOf(errors);
+        warnings = List.copyOf(warnings);
+    }
+
+    /**
+     * @return the output decoded as UTF-8
+     */
+    public String outputText() {
+        return new String(output, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the first error, or {@code null} if there is none
+     */
+    public @Nullable String firstError() {
+        return errors.isEmpty() ? null : errors.getFirst();
+    }
+
+    RunResult withOutput(byte[] output) {
+        return new RunResult(status, exitCode, output, retiredInstructions, wallNanos, errors, warnings);
+    }
+}
@@ -0,0 +1,371 @@
+package me.adversing.asm.engine;
+
+import java.math.BigInteger;
+
+import static java.lang.Math.multiplyHigh;
+
+/**
+ * Formats floats and doubles exactly as {@link Float#toString(float)} and
+ * {@link Double#toString(double)} do, into a byte array and without allocating.
+ * <p>
+ * The digits are the shortest decimal that rounds back to the value, chosen with Giulietti's
+ * Schubfach algorithm, the one the JDK itself uses: the value's rounding interval is scaled by
+ * a 126-bit approximation of a power of ten, read from a table built once when the class is
+ * loaded, and the decimal is picked with a few comparisons on {@code long}s. Values from
+ * 10<sup>-3</sup> up to 10<sup>7</sup> are written in plain notation, others as
+ * {@code d.dddE±n}.
+ */
+final class ShortestDecimal {
+    /**
+     * Longest output: a sign, 17 digits, the point, and an exponent such as {@code E-308}.
+     */
+    static final int MAX_LENGTH = 24;
+
+    // ------------------------------------------------
+    // Binary formats
+    // ------------------------------------------------
+    private static final int DOUBLE_PRECISION = 53;
+    private static final int DOUBLE_Q_MIN = -1074;
+    private static final int DOUBLE_BQ_MASK = 0x7FF;
+    private static final long DOUBLE_T_MASK = (1L << DOUBLE_PRECISION - 1) - 1;
+    private static final long DOUBLE_C_MIN = 1L << DOUBLE_PRECISION - 1;
+    private static final long DOUBLE_C_TINY = 3;  // subnormals below this need one more digit
+
+    private static final int FLOAT_PRECISION = 24;
+    private static final int FLOAT_Q_MIN = -149;
+    private static final int FLOAT_BQ_MASK = 0xFF;
+    private static final int FLOAT_T_MASK = (1 << FLOAT_PRECISION - 1) - 1;
+    private static final int FLOAT_C_MIN = 1 << FLOAT_PRECISION - 1;
+    private static final int FLOAT_C_TINY = 8;
+
+    private static final long MASK_63 = (1L << 63) - 1;
+    private static final long MASK_32 = (1L << 32) - 1;
+
+    // ------------------------------------------------
+    // Powers of ten
+    // ------------------------------------------------
+    // 10^-k = β 2^r with 2^125 <= β < 2^126, stored as g = floor(β) + 1 split into its
+    // upper and lower 63 bits; k spans every exponent a double needs
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long[] G = powersOfTen();
+
+    private static final byte[] NAN = {'N', 'a', 'N'};
+    private static final byte[] INFINITY = {'I', 'n', 'f', 'i', 'n', 'i', 't', 'y'};
+
+    private ShortestDecimal() {
+    }
+
+    // ------------------------------------------------
+    // Doubles
+    // ------------------------------------------------
+    /**
+     * Writes {@code value} at {@code position}, which must leave room for {@link #MAX_LENGTH} bytes.
+     *
+     * @return the position after the last byte written
+     */
+    static int write(double value, byte[] buffer, int position) {
+        long bits = Double.doubleToRawLongBits(value);
+        long t = bits & DOUBLE_T_MASK;
+        int bq = (int) (bits >>> DOUBLE_PRECISION - 1) & DOUBLE_BQ_MASK;
+        if (bq == DOUBLE_BQ_MASK) {
+            return special(t != 0, bits < 0, buffer, position);
+        }
+        if (bits < 0) {
+            buffer[position++] = '-';
+        }
+        if (bq != 0) {
+            int mq = -DOUBLE_Q_MIN + 1 - bq;
+            long c = DOUBLE_C_MIN | t;
+            if (0 < mq && mq < DOUBLE_PRECISION) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    return toChars(f, 0, buffer, position); // an integer
+                }
+            }
+            return toDecimal(-mq, c, 0, buffer, position);
+        }
+        if (t != 0) {
+            return t < DOUBLE_C_TINY
+                    ? toDecimal(DOUBLE_Q_MIN, 10 * t, -1, buffer, position)
+                    : toDecimal(DOUBLE_Q_MIN, t, 0, buffer, position);
+        }
+        return zero(buffer, position);
+    }
+
+    /**
+     * Picks the decimal for c 2<sup>q</sup>, see section 9 of Giulietti's "The Schubfach way to
+     * render doubles".
+     */
+    private static int toDecimal(int q, long c, int dk, byte[] buffer, int position) {
+        int out = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != DOUBLE_C_MIN || q == DOUBLE_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // the interval below a power of two is half as wide
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+        long g1 = G[2 * (k - K_MIN)];
+        long g0 = G[2 * (k - K_MIN) + 1];
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // one digit less may already be inside the rounding interval
+            long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4); // 10 floor(s / 10)
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return toChars(upin ? sp10 : tp10, k, buffer, position);
+            }
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return toChars(uin ? s : t, k + dk, buffer, position);
+        }
+        // both are inside: take the closer one, the even one on a tie
+        long cmp = vb - (s + t << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, buffer, position);
+    }
+
+    /**
+     * @return the 126-bit g times {@code cp}, shifted right by 127 bits and rounded to odd
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    // ------------------------------------------------
+    // Floats
+    // ------------------------------------------------
+    /**
+     * Writes {@code value} at {@code position}, which must leave room for {@link #MAX_LENGTH} bytes.
+     *
+     * @return the position after the last byte written
+     */
+    static int write(float value, byte[] buffer, int position) {
+        int bits = Float.floatToRawIntBits(value);
+        int t = bits & FLOAT_T_MASK;
+        int bq = (bits >>> FLOAT_PRECISION - 1) & FLOAT_BQ_MASK;
+        if (bq == FLOAT_BQ_MASK) {
+            return special(t != 0, bits < 0, buffer, position);
+        }
+        if (bits < 0) {
+            buffer[position++] = '-';
+        }
+        if (bq != 0) {
+            int mq = -FLOAT_Q_MIN + 1 - bq;
+            int c = FLOAT_C_MIN | t;
+            if (0 < mq && mq < FLOAT_PRECISION) {
+                int f = c >> mq;
+                if (f << mq == c) {
+                    return toChars(f, 0, buffer, position);
+                }
+            }
+            return toDecimal(-mq, c, 0, buffer, position);
+        }
+        if (t != 0) {
+            return t < FLOAT_C_TINY
+                    ? toDecimal(FLOAT_Q_MIN, 10 * t, -1, buffer, position)
+                    : toDecimal(FLOAT_Q_MIN, t, 0, buffer, position);
+        }
+        return zero(buffer, position);
+    }
+
+    /**
+     * The float counterpart of {@link #toDecimal(int, long, int, byte[], int)}; 64 bits of
+     * the power of ten are enough here.
+     */
+    private static int toDecimal(int q, int c, int dk, byte[] buffer, int position) {
+        int out = c & 1;
+        long cb = (long) c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != FLOAT_C_MIN || q == FLOAT_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+        long g = G[2 * (k - K_MIN)] + 1;
+        int vb = rop(g, cb << h);
+        int vbl = rop(g, cbl << h);
+        int vbr = rop(g, cbr << h);
+
+        int s = vb >> 2;
+        if (s >= 100) {
+            int sp10 = 10 * (int) (s * 1_717_986_919L >>> 34); // 10 floor(s / 10)
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return toChars(upin ? sp10 : tp10, k, buffer, position);
+            }
+        }
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return toChars(uin ? s : t, k + dk, buffer, position);
+        }
+        int cmp = vb - (s + t << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, buffer, position);
+    }
+
+    private static int rop(long g, long cp) {
+        long x1 = multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+    }
+
+    // ------------------------------------------------
+    // Rendering
+    // ------------------------------------------------
+    /**
+     * Writes f 10<sup>e</sup>, {@code f > 0}, in the layout of {@link Double#toString(double)}.
+     */
+    private static int toChars(long f, int e, byte[] buffer, int position) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int digits = digitCount(f);
+        int exponent = e + digits; // the value is 0.d1...dn 10^exponent
+
+        if (0 < exponent && exponent <= 7) {
+            writeDigits(f, digits, buffer, position);
+            if (digits <= exponent) {
+                position += digits;
+                for (int i = digits; i < exponent; i++) {
+                    buffer[position++] = '0';
+                }
+                buffer[position++] = '.';
+                buffer[position++] = '0';
+                return position;
+            }
+            // open a gap for the point after the integer digits
+            int point = position + exponent;
+            System.arraycopy(buffer, point, buffer, point + 1, digits - exponent);
+            buffer[point] = '.';
+            return position + digits + 1;
+        }
+        if (-3 < exponent && exponent <= 0) {
+            buffer[position++] = '0';
+            buffer[position++] = '.';
+            for (int i = exponent; i < 0; i++) {
+                buffer[position++] = '0';
+            }
+            writeDigits(f, digits, buffer, position);
+            return position + digits;
+        }
+
+        // d.ddd: write the digits one place right, then move the first one before the point
+        writeDigits(f, digits, buffer, position + 1);
+        buffer[position] = buffer[position + 1];
+        buffer[position + 1] = '.';
+        position += digits + 1;
+        if (digits == 1) {
+            buffer[position++] = '0';
+        }
+        buffer[position++] = 'E';
+        int scientific = exponent - 1;
+        if (scientific < 0) {
+            buffer[position++] = '-';
+            scientific = -scientific;
+        }
+        int exponentDigits = digitCount(scientific);
+        writeDigits(scientific, exponentDigits, buffer, position);
+        return position + exponentDigits;
+    }
+
+    private static void writeDigits(long value, int digits, byte[] buffer, int position) {
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static int special(boolean nan, boolean negative, byte[] buffer, int position) {
+        if (nan) {
+            System.arraycopy(NAN, 0, buffer, position, NAN.length);
+            return position + NAN.length;
+        }
+        if (negative) {
+            buffer[position++] = '-';
+        }
+        System.arraycopy(INFINITY, 0, buffer, position, INFINITY.length);
+        return position + INFINITY.length;
+    }
+
+    private static int zero(byte[] buffer, int position) {
+        buffer[position++] = '0';
+        buffer[position++] = '.';
+        buffer[position++] = '0';
+        return position;
+    }
+
+    // ------------------------------------------------
+    // Logarithms, exact over the exponents used here
+    // ------------------------------------------------
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    private static long[] powersOfTen() {
+        long[] table = new long[2 * (K_MAX - K_MIN + 1)];
+        BigInteger mask63 = BigInteger.ONE.shiftLeft(63).subtract(BigInteger.ONE);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            BigInteger beta;
+            if (k <= 0) {
+                BigInteger power = BigInteger.TEN.pow(-k);
+                int r = power.bitLength() - 126;
+                beta = r >= 0 ? power.shiftRight(r) : power.shiftLeft(-r);
+            } else {
+                // 10^k is not a power of two, so 2^(bitLength + 125) / 10^k lies in (2^125, 2^126)
+                BigInteger power = BigInteger.TEN.pow(k);
+                beta = BigInteger.ONE.shiftLeft(power.bitLength() + 125).divide(power);
+            }
+            BigInteger g = beta.add(BigInteger.ONE);
+            table[2 * (k - K_MIN)] = g.shiftRight(63).longValueExact();
+            table[2 * (k - K_MIN) + 1] = g.and(mask63).longValueExact();
+        }
+        return table;
+    }
+}
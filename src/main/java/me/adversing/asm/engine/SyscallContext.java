@@ -0,0 +1,86 @@
+package me.adversing.asm.engine;
+
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+
+/**
+ * The I/O state of one machine's system calls: where the program reads its input from and
+ * where its output goes.
+ * <p>
+ * Every {@link ASMEvaluator} owns a context, so evaluators running on different threads share
+ * no buffers; instruction handlers are shared between evaluators and keep no state of their
+ * own. Both ends are injectable, e.g. a {@link java.io.StringReader} and an in-memory
+ * {@link ProgramOutput} to run a program as a job. The heap break, the other piece of
+ * per-program syscall state, lives in the evaluator's {@link Memory}.
+ * <p>
+ * Reads flush pending output first, so a prompt is visible before the program blocks.
+ */
+@Getter
+public final class SyscallContext implements AutoCloseable {
+    // The process has a single standard input: contexts reading it share one buffer, so a
+    // line buffered for one evaluator is never lost to another
+    private static final BufferedReader STDIN = new BufferedReader(new InputStreamReader(System.in));
+
+    private final BufferedReader input;
+    private final ProgramOutput output;
+
+    /**
+     * @param input  read by the input syscalls; owned by the caller, the context does not close it
+     * @param output written by the print syscalls; closed with the context
+     */
+    public SyscallContext(Reader input, ProgramOutput output) {
+        this.input = input instanceof BufferedReader buffered ? buffered : new BufferedReader(input);
+        this.output = output;
+    }
+
+    /**
+     * @return a context on the process's standard input and output
+     */
+    public static SyscallContext standard() {
+        return standard(ProgramOutput.stdout());
+    }
+
+    /**
+     * @return a context on the process's standard input, writing to {@code output}
+     */
+    public static SyscallContext standard(ProgramOutput output) {
+        return new SyscallContext(STDIN, output);
+    }
+
+    /**
+     * @return a context with empty input whose output is thrown away; it never touches the
+     *         process's standard streams
+     */
+    public static SyscallContext discard() {
+        return new SyscallContext(Reader.nullReader(), new ProgramOutput(OutputStream.nullOutputStream(), false));
+    }
+
+    /**
+     * @return the next line of input without its line terminator, or {@code null} at the end of input
+     */
+    public String readLine() throws IOException {
+        output.flush();
+        return input.readLine();
+    }
+
+    /**
+     * @return the next character of input, or -1 at the end of input
+     */
+    public int read() throws IOException {
+        output.flush();
+        return input.read();
+    }
+
+    /**
+     * Flushes and closes the output. The input belongs to whoever supplied it.
+     */
+    @Override
+    public void close() {
+        output.close();
+    }
+}
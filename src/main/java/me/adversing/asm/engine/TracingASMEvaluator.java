@@ -0,0 +1,240 @@
+package me.adversing.asm.engine;
+
+import me.adversing.asm.diagnostic.DiagnosticService;
+import me.adversing.asm.instruction.handler.OperandConstants;
+import me.adversing.asm.program.DecodedInstruction;
+
+/**
+ * {@link ASMEvaluator} that traces every register, memory and control-flow access to the
+ * debug logger.
+ * <p>
+ * Selected by {@link ASMEvaluator#create} when debugging is enabled. Keeping the tracing in
+ * a subclass leaves the production accessors free of logging branches.
+ */
+public class TracingASMEvaluator extends ASMEvaluator {
+
+    public TracingASMEvaluator(DiagnosticService diagnosticService) {
+        this(diagnosticService, SyscallContext.standard());
+    }
+
+    public TracingASMEvaluator(DiagnosticService diagnosticService, SyscallContext syscallContext) {
+        super(diagnosticService, syscallContext, true);
+    }
+
+    @Override
+    protected void executeInstruction(DecodedInstruction instruction) {
+        super.executeInstruction(instruction);
+        getDebugLogger().debug("Register $v0 = {}", getRegister(OperandConstants.V0_REGISTER.index()));
+    }
+
+    // ------------------------------------------------
+    // Registers
+    // ------------------------------------------------
+    @Override
+    public int getRegister(int index) {
+        int value = super.getRegister(index);
+        getDebugLogger().debug("Value of {} is {}", Registers.intName(index), value);
+        return value;
+    }
+
+    @Override
+    public void setRegister(int index, int value) {
+        super.setRegister(index, value);
+        getDebugLogger().debug("Setting {} to {}", Registers.intName(index), value);
+    }
+
+    @Override
+    public double getFpRegister(int index) {
+        double value = super.getFpRegister(index);
+        getDebugLogger().debug("Value of $f{} is {}", index, value);
+        return value;
+    }
+
+    @Override
+    public void setFpRegister(int index, double value) {
+        super.setFpRegister(index, value);
+        getDebugLogger().debug("Setting $f{} to {}", index, value);
+    }
+
+    @Override
+    public int getCp0Register(int index) {
+        int value = super.getCp0Register(index);
+        getDebugLogger().debug("Value of cp0_{} is {}", index, value);
+        return value;
+    }
+
+    @Override
+    public void setCp0Register(int index, int value) {
+        super.setCp0Register(index, value);
+        getDebugLogger().debug("Setting cp0_{} to {}", index, value);
+    }
+
+    // ------------------------------------------------
+    // Control flow
+    // ------------------------------------------------
+    @Override
+    public void branchTo(int target) {
+        getDebugLogger().debug("Branching to {}", target);
+        super.branchTo(target);
+    }
+
+    @Override
+    public void jumpTo(int target) {
+        getDebugLogger().debug("Jumping to {}", target);
+        super.jumpTo(target);
+    }
+
+    @Override
+    public void jumpToRegister(int register) {
+        super.jumpToRegister(register);
+        getDebugLogger().debug("Jumping to register {} at {}", Registers.intName(register), getProgramCounter() + 1);
+    }
+
+    // ------------------------------------------------
+    // Memory
+    // ------------------------------------------------
+    @Override
+    public void storeByteToMemory(int address, byte value) {
+        getDebugLogger().debug("Storing byte {} at {}", value, address);
+        super.storeByteToMemory(address, value);
+    }
+
+    @Override
+    public void storeConditional(int register, int address, int value) {
+        boolean linked = isLlBit();
+        super.storeConditional(register, address, value);
+        if (linked) getDebugLogger().debug("LL bit cleared by successful SC");
+    }
+
+    @Override
+    public void loadLinked(int register, int address) {
+        super.loadLinked(register, address);
+        getDebugLogger().debug("LL bit set to 1");
+    }
+
+    @Override
+    public void storeDoubleWordToMemory(int address, long value) {
+        getDebugLogger().debug("Storing double word {} at {}", value, address);
+        super.storeDoubleWordToMemory(address, value);
+    }
+
+    @Override
+    public void storeHalfWordToMemory(int address, short value) {
+        getDebugLogger().debug("Storing half word {} at {}", value, address);
+        super.storeHalfWordToMemory(address, value);
+    }
+
+    @Override
+    public void storeWordToMemory(int address, int value) {
+        getDebugLogger().debug("Storing word {} at {}", value, address);
+        super.storeWordToMemory(address, value);
+    }
+
+    @Override
+    public void storeFloatToMemory(int address, float value) {
+        getDebugLogger().debug("Storing float {} at {}", value, address);
+        super.storeFloatToMemory(address, value);
+    }
+
+    @Override
+    public void storeWordLeftToMemory(int address, int value) {
+        getDebugLogger().debug("Storing word left {} at {}", value, address);
+        super.storeWordLeftToMemory(address, value);
+    }
+
+    @Override
+    public void storeWordRightToMemory(int address, int value) {
+        getDebugLogger().debug("Storing word right {} at {}", value, address);
+        super.storeWordRightToMemory(address, value);
+    }
+
+    @Override
+    public void copyToMemory(int address, byte[] source, int offset, int length) {
+        getDebugLogger().debug("Storing {} bytes at {}", length, address);
+        super.copyToMemory(address, source, offset, length);
+    }
+
+    @Override
+    public void copyMemory(int destination, int source, int length) {
+        getDebugLogger().debug("Copying {} bytes from {} to {}", length, source, destination);
+        super.copyMemory(destination, source, length);
+    }
+
+    @Override
+    public void fillMemory(int address, int length, byte value) {
+        getDebugLogger().debug("Filling {} bytes at {} with {}", length, address, value);
+        super.fillMemory(address, length, value);
+    }
+
+    @Override
+    public byte loadByteFromMemory(int address) {
+        byte value = super.loadByteFromMemory(address);
+        getDebugLogger().debug("Loading byte at {} with value {}", address, value);
+        return value;
+    }
+
+    @Override
+    public short loadHalfWordFromMemory(int address) {
+        short value = super.loadHalfWordFromMemory(address);
+        getDebugLogger().debug("Loading half word at {} with value {}", address, value);
+        return value;
+    }
+
+    @Override
+    public int loadWordFromMemory(int address) {
+        int value = super.loadWordFromMemory(address);
+        getDebugLogger().debug("Loading word at {} with value {}", address, value);
+        return value;
+    }
+
+    @Override
+    public float loadFloatFromMemory(int address) {
+        float value = super.loadFloatFromMemory(address);
+        getDebugLogger().debug("Loading float at {} with value {}", address, value);
+        return value;
+    }
+
+    @Override
+    public long loadDoubleWordFromMemory(int address) {
+        long value = super.loadDoubleWordFromMemory(address);
+        getDebugLogger().debug("Loading double word at {} with value {}", address, value);
+        return value;
+    }
+
+    @Override
+    public int loadWordLeftFromMemory(int address) {
+        int value = super.loadWordLeftFromMemory(address);
+        getDebugLogger().debug("Loading word left at {} with value {}", address, value);
+        return value;
+    }
+
+    @Override
+    public int loadWordRightFromMemory(int address) {
+        int value = super.loadWordRightFromMemory(address);
+        getDebugLogger().debug("Loading word right at {} with value {}", address, value);
+        return value;
+    }
+
+    @Override
+    public int sbrk(int bytes) {
+        int address = super.sbrk(bytes);
+        getDebugLogger().debug("Allocated {} heap bytes at {}", bytes, address);
+        return address;
+    }
+
+    // ------------------------------------------------
+    // Variables
+    // ------------------------------------------------
+    @Override
+    public Integer getVariableAddress(String varName) {
+        Integer address = super.getVariableAddress(varName);
+        getDebugLogger().debug("Variable address: {}", address);
+        return address;
+    }
+
+    @Override
+    public void loadAddress(int targetRegister, int address) {
+        getDebugLogger().debug("Loading address {} into {}", address, Registers.intName(targetRegister));
+        super.loadAddress(targetRegister, address);
+    }
+}
@@ -4,16 +4,8 @@ import me.adversing.asm.Operand;
 
 import java.util.List;
 
-public record Instruction(String name, List<Operand> operands) {
-
-    public boolean isLabel() {
-        return name.endsWith(":");
-    }
-
-    public String getLabel() {
-        if (isLabel()) {
-            return name.substring(0, name.length() - 1);
-        }
-        return null;
-    }
+/**
+ * @param line the 1-based source line the instruction was read from
+ */
+public record Instruction(String name, List<Operand> operands, int line) {
 }
@@ -1,19 +1,28 @@
 package me.adversing.asm.instruction.handler;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
 
 import java.util.List;
 
 public abstract class BaseInstructionHandler implements InstructionHandler {
+    private final String name = getClass().getAnnotation(Mnemonic.class).value();
+
+    /**
+     * @return the mnemonic declared with {@link Mnemonic}
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
 
-    public abstract String getName();
     public abstract void execute(List<Operand> operands, ASMEvaluator evaluator);
-    public abstract boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator);
+    public abstract boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService);
     
-    protected boolean validateOperandCount(List<Operand> operands, int expectedCount, ASMEvaluator evaluator) {
+    protected boolean validateOperandCount(List<Operand> operands, int expectedCount, DiagnosticService diagnosticService) {
         if (operands.size() != expectedCount) {
-            evaluator.getDiagnosticService().addError(
+            diagnosticService.addError(
                 getName() + " instruction must have " + expectedCount + " operands, got " + operands.size()
             );
             return false;
@@ -22,30 +31,92 @@ public abstract class BaseInstructionHandler implements InstructionHandler {
     }
     
     /**
-     * Validates that a register exists in the integer register map.
+     * Validates that an operand resolved to an integer register.
      * 
-     * @param register the register name to validate
-     * @param evaluator the evaluator containing register mappings
-     * @return true if register exists, false otherwise
+     * @param operand the operand to validate
+     * @param diagnosticService the service validation errors are reported to
+     * @return true if the operand is an integer register, false otherwise
      */
-    protected boolean validateIntRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getIntRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Integer register not found: " + register);
+    protected boolean validateIntRegister(Operand operand, DiagnosticService diagnosticService) {
+        if (!operand.is(Operand.Kind.INT_REGISTER)) {
+            diagnosticService.addError("Integer register not found: " + operand.value());
             return false;
         }
         return true;
     }
     
     /**
-     * Validates that a register exists in the floating-point register map.
+     * Validates that an operand resolved to a floating-point register.
+     * 
+     * @param operand the operand to validate
+     * @param diagnosticService the service validation errors are reported to
+     * @return true if the operand is a floating-point register, false otherwise
+     */
+    protected boolean validateFpRegister(Operand operand, DiagnosticService diagnosticService) {
+        if (!operand.is(Operand.Kind.FP_REGISTER)) {
+            diagnosticService.addError("Floating-point register not found: " + operand.value());
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Validates that an operand is a numeric immediate.
+     * 
+     * @param operand the operand to validate
+     * @param diagnosticService the service validation errors are reported to
+     * @return true if the operand is an immediate, false otherwise
+     */
+    protected boolean validateImmediate(Operand operand, DiagnosticService diagnosticService) {
+        if (!operand.is(Operand.Kind.IMMEDIATE)) {
+            diagnosticService.addError(getName() + " instruction immediate must be an integer, got " + operand.value());
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Validates that an operand is a numeric immediate within the specified range.
+     * 
+     * @param operand the operand to validate
+     * @param min minimum allowed value (inclusive)
+     * @param max maximum allowed value (inclusive)
+     * @param diagnosticService the service validation errors are reported to
+     * @return true if the operand is an immediate in range, false otherwise
+     */
+    protected boolean validateImmediate(Operand operand, int min, int max, DiagnosticService diagnosticService) {
+        return validateImmediate(operand, diagnosticService) &&
+               validateImmediateRange(operand.immediate(), min, max, diagnosticService);
+    }
+    
+    /**
+     * Validates that an operand can be used as a memory address: {@code offset($base)},
+     * an integer register, an absolute immediate or a variable name.
+     * 
+     * @param operand the operand to validate
+     * @param diagnosticService the service validation errors are reported to
+     * @return true if the operand addresses memory, false otherwise
+     */
+    protected boolean validateAddress(Operand operand, DiagnosticService diagnosticService) {
+        return switch (operand.kind()) {
+            case MEMORY, INT_REGISTER, IMMEDIATE, SYMBOL, LABEL -> true;
+            default -> {
+                diagnosticService.addError("Invalid memory operand: " + operand.value());
+                yield false;
+            }
+        };
+    }
+    
+    /**
+     * Validates that an operand is a label that was linked to an instruction index.
      * 
-     * @param register the register name to validate
-     * @param evaluator the evaluator containing register mappings
-     * @return true if register exists, false otherwise
+     * @param operand the operand to validate
+     * @param diagnosticService the service validation errors are reported to
+     * @return true if the operand is a linked label, false otherwise
      */
-    protected boolean validateFpRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getFpRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Floating-point register not found: " + register);
+    protected boolean validateLabel(Operand operand, DiagnosticService diagnosticService) {
+        if (!operand.is(Operand.Kind.LABEL)) {
+            diagnosticService.addError(getName() + " instruction target must be a label, got " + operand.value());
             return false;
         }
         return true;
@@ -55,15 +126,15 @@ public abstract class BaseInstructionHandler implements InstructionHandler {
      * Validates that a string can be parsed as an integer.
      * 
      * @param value the string to validate
-     * @param evaluator the evaluator for error reporting
+     * @param diagnosticService the service validation errors are reported to
      * @return true if value is a valid integer, false otherwise
      */
-    protected boolean validateInteger(String value, ASMEvaluator evaluator) {
+    protected boolean validateInteger(String value, DiagnosticService diagnosticService) {
         try {
             Integer.parseInt(value);
             return true;
         } catch (NumberFormatException e) {
-            evaluator.getDiagnosticService().addError("Invalid integer value: " + value);
+            diagnosticService.addError("Invalid integer value: " + value);
             return false;
         }
     }
@@ -72,15 +143,15 @@ public abstract class BaseInstructionHandler implements InstructionHandler {
      * Validates that a string can be parsed as a float.
      * 
      * @param value the string to validate
-     * @param evaluator the evaluator for error reporting
+     * @param diagnosticService the service validation errors are reported to
      * @return true if value is a valid float, false otherwise
      */
-    protected boolean validateFloat(String value, ASMEvaluator evaluator) {
+    protected boolean validateFloat(String value, DiagnosticService diagnosticService) {
         try {
             Float.parseFloat(value);
             return true;
         } catch (NumberFormatException e) {
-            evaluator.getDiagnosticService().addError("Invalid float value: " + value);
+            diagnosticService.addError("Invalid float value: " + value);
             return false;
         }
     }
@@ -89,15 +160,15 @@ public abstract class BaseInstructionHandler implements InstructionHandler {
      * Validates that a string can be parsed as a double.
      * 
      * @param value the string to validate
-     * @param evaluator the evaluator for error reporting
+     * @param diagnosticService the service validation errors are reported to
      * @return true if value is a valid double, false otherwise
      */
-    protected boolean validateDouble(String value, ASMEvaluator evaluator) {
+    protected boolean validateDouble(String value, DiagnosticService diagnosticService) {
         try {
             Double.parseDouble(value);
             return true;
         } catch (NumberFormatException e) {
-            evaluator.getDiagnosticService().addError("Invalid double value: " + value);
+            diagnosticService.addError("Invalid double value: " + value);
             return false;
         }
     }
@@ -108,12 +179,12 @@ public abstract class BaseInstructionHandler implements InstructionHandler {
      * @param value the immediate value
      * @param min minimum allowed value (inclusive)
      * @param max maximum allowed value (inclusive)
-     * @param evaluator the evaluator for error reporting
+     * @param diagnosticService the service validation errors are reported to
      * @return true if value is in range, false otherwise
      */
-    protected boolean validateImmediateRange(int value, int min, int max, ASMEvaluator evaluator) {
+    protected boolean validateImmediateRange(int value, int min, int max, DiagnosticService diagnosticService) {
         if (value < min || value > max) {
-            evaluator.getDiagnosticService().addError(
+            diagnosticService.addError(
                 "Immediate value " + value + " must be between " + min + " and " + max
             );
             return false;
@@ -1,13 +1,39 @@
 package me.adversing.asm.instruction.handler;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
 public interface InstructionHandler {
     String getName();
+
+    /**
+     * Executes the instruction. Operands have already been accepted by
+     * {@link #checkOperands} when the program was verified, so implementations
+     * do not validate them again.
+     */
     void execute(List<Operand> operands, ASMEvaluator evaluator);
     boolean checkDestinationRegister(String register, ASMEvaluator evaluator);
-    boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator);
+
+    /**
+     * Validates operand count and kinds. Called once per instruction by the
+     * {@link me.adversing.asm.program.ProgramVerifier} before execution starts.
+     */
+    boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService);
+
+    /**
+     * Compiles the instruction at {@code pc} for threaded execution. Handlers on hot
+     * paths override this to capture their operands as primitives; the default node
+     * simply delegates to {@link #execute}.
+     */
+    default CompiledInstruction compile(List<Operand> operands, int pc) {
+        return evaluator -> {
+            evaluator.setProgramCounter(pc);
+            execute(operands, evaluator);
+            return evaluator.getProgramCounter() + 1;
+        };
+    }
 }
@@ -0,0 +1,19 @@
+package me.adversing.asm.instruction.handler;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers an {@link InstructionHandler} under the mnemonic it implements.
+ * <p>
+ * Annotated handlers are collected at compile time into the generated
+ * {@code me.adversing.asm.instruction.factory.InstructionRegistry}, so no classpath scanning
+ * happens at run time. Handlers must be public, concrete and have a public no-argument constructor.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Mnemonic {
+    String value();
+}
@@ -1,58 +1,52 @@
 package me.adversing.asm.instruction.impl.add;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
-public class Add implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "add";
-    }
+@Mnemonic("add")
+public class Add extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        Operand register = operands.getFirst();
-        if (!checkDestinationRegister(register.value(), evaluator)) {
-            return;
-        }
-
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        int value1 = evaluator.getRegisterValue(operands.get(1));
-        int value2 = evaluator.getRegisterValue(operands.get(2));
-        evaluator.setRegisterValue(register, value1 + value2);
+        add(evaluator, operands.getFirst().index(),
+                evaluator.getRegister(operands.get(1).index()),
+                evaluator.getRegister(operands.get(2).index()));
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getIntRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Register ." + register + " not found.");
-            return false;
-        }
-        return true;
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        int rd = operands.getFirst().index();
+        int rs = operands.get(1).index();
+        int rt = operands.get(2).index();
+        int next = pc + 1;
+        return evaluator -> {
+            add(evaluator, rd, evaluator.getRegister(rs), evaluator.getRegister(rt));
+            return next;
+        };
     }
 
-    @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 3) {
-            evaluator.getDiagnosticService().addError("Add instruction must have exactly 3 operand(s).");
-            return false;
-        }
-
-        
-
-        int value1 = evaluator.getRegisterValue(operands.get(1));
-        int value2 = evaluator.getRegisterValue(operands.get(2));
-
+    private static void add(ASMEvaluator evaluator, int rd, int value1, int value2) {
         if ((value1 > 0 && value2 > 0 && value1 > Integer.MAX_VALUE - value2) ||
             (value1 < 0 && value2 < 0 && value1 < Integer.MIN_VALUE - value2)) {
             evaluator.getDiagnosticService().addError("Add instruction arithmetic overflow detected.");
+            return;
+        }
+        evaluator.setRegister(rd, value1 + value2);
+    }
+
+    @Override
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 3, diagnosticService)) {
             return false;
         }
-        return true;
+
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateIntRegister(operands.get(1), diagnosticService) &&
+               validateIntRegister(operands.get(2), diagnosticService);
     }
 }
@@ -1,63 +1,52 @@
 package me.adversing.asm.instruction.impl.add;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
-public class Addi implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "addi";
-    }
+@Mnemonic("addi")
+public class Addi extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        Operand register = operands.getFirst();
-        if (!checkDestinationRegister(register.value(), evaluator)) {
-            return;
-        }
-
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        int value1 = evaluator.getRegisterValue(operands.get(1));
-        int immediate = Integer.parseInt(operands.get(2).value());
-        evaluator.setRegisterValue(register, value1 + immediate);
+        addi(evaluator, operands.getFirst().index(),
+                evaluator.getRegister(operands.get(1).index()),
+                operands.get(2).immediate());
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getIntRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Register ." + register + " not found.");
-            return false;
-        }
-        return true;
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        int rt = operands.getFirst().index();
+        int rs = operands.get(1).index();
+        int immediate = operands.get(2).immediate();
+        int next = pc + 1;
+        return evaluator -> {
+            addi(evaluator, rt, evaluator.getRegister(rs), immediate);
+            return next;
+        };
     }
 
-    @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 3) {
-            evaluator.getDiagnosticService().addError("Addi instruction must have exactly 3 operand(s).");
-            return false;
+    private static void addi(ASMEvaluator evaluator, int rt, int value, int immediate) {
+        if ((value > 0 && immediate > 0 && value > Integer.MAX_VALUE - immediate) ||
+            (value < 0 && immediate < 0 && value < Integer.MIN_VALUE - immediate)) {
+            evaluator.getDiagnosticService().addError("Addi instruction arithmetic overflow detected.");
+            return;
         }
+        evaluator.setRegister(rt, value + immediate);
+    }
 
-        try {
-            Integer.parseInt(operands.get(2).value());
-        } catch (NumberFormatException e) {
-            evaluator.getDiagnosticService().addError("Addi instruction immediate must be an integer.");
+    @Override
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 3, diagnosticService)) {
             return false;
         }
 
-        int value1 = evaluator.getRegisterValue(operands.get(1));
-        int immediate = Integer.parseInt(operands.get(2).value());
-
-        if ((value1 > 0 && immediate > 0 && value1 > Integer.MAX_VALUE - immediate) ||
-            (value1 < 0 && immediate < 0 && value1 < Integer.MIN_VALUE - immediate)) {
-            evaluator.getDiagnosticService().addError("Addi instruction arithmetic overflow detected.");
-            return false;
-        }
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateIntRegister(operands.get(1), diagnosticService) &&
+               validateImmediate(operands.get(2), diagnosticService);
     }
 }
@@ -1,53 +1,43 @@
 package me.adversing.asm.instruction.impl.add;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
-public class Addu implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "addu";
-    }
+@Mnemonic("addu")
+public class Addu extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        Operand register = operands.getFirst();
-        if (!checkDestinationRegister(register.value().replace("$", ""), evaluator)) {
-            return;
-        }
-
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        long value1 = evaluator.getRegisterValue(operands.get(1)) & 0xFFFFFFFFL;
-        long value2 = evaluator.getRegisterValue(operands.get(2)) & 0xFFFFFFFFL;
-        evaluator.setRegisterValue(register, (int)(value1 + value2));
+        int value1 = evaluator.getRegister(operands.get(1).index());
+        int value2 = evaluator.getRegister(operands.get(2).index());
+        evaluator.setRegister(operands.getFirst().index(), value1 + value2);
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getIntRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Register ." + register + " not found.");
-            return false;
-        } else if (evaluator.getIntRegisterOffsets().get(register) != 0) {
-            evaluator.getDiagnosticService().addError("Register ." + register + " is already in use.");
-            return false;
-        }
-        return true;
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        int rd = operands.getFirst().index();
+        int rs = operands.get(1).index();
+        int rt = operands.get(2).index();
+        int next = pc + 1;
+        return evaluator -> {
+            evaluator.setRegister(rd, evaluator.getRegister(rs) + evaluator.getRegister(rt));
+            return next;
+        };
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 3) {
-            evaluator.getDiagnosticService().addError("Addu instruction must have exactly 3 operand(s).");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 3, diagnosticService)) {
             return false;
         }
 
-        
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateIntRegister(operands.get(1), diagnosticService) &&
+               validateIntRegister(operands.get(2), diagnosticService);
     }
-
 }
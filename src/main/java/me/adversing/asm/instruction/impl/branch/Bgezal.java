@@ -1,53 +1,32 @@
 package me.adversing.asm.instruction.impl.branch;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
 import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
 import me.adversing.asm.instruction.handler.OperandConstants;
 
 import java.util.List;
 
+@Mnemonic("bgezal")
 public class Bgezal extends BaseInstructionHandler {
-    @Override
-    public String getName() {
-        return "bgezal";
-    }
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        int value = evaluator.getRegisterValue(operands.getFirst());
+        int value = evaluator.getRegister(operands.getFirst().index());
         if (value >= 0) {
-            evaluator.setRegisterValue(OperandConstants.RA_REGISTER, evaluator.getProgramCounter() + 1);
-            evaluator.branchToLabel(operands.get(1).value());
+            evaluator.setRegister(OperandConstants.RA_REGISTER.index(), evaluator.getProgramCounter() + 1);
+            evaluator.branchTo(operands.get(1).target());
         }
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        return true; // Branch instructions don't have a destination register
-    }
-
-    @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 2) {
-            evaluator.getDiagnosticService().addError("Bgezal instruction must have exactly 2 operand(s).");
-            return false;
-        }
-
-        try {
-            Integer.parseInt(operands.getFirst().value());
-        } catch (NumberFormatException e) {
-            evaluator.getDiagnosticService().addError("Bgezal instruction operand must be an integer.");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 2, diagnosticService)) {
             return false;
         }
 
-        if (!evaluator.getIntRegisterOffsets().containsKey(operands.getFirst().value())) {
-            evaluator.getDiagnosticService().addError("Bgezal instruction Register not found.");
-            return false;
-        }
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateLabel(operands.get(1), diagnosticService);
     }
 }
@@ -1,51 +1,39 @@
 package me.adversing.asm.instruction.impl.branch;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
-public class Bltz implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "bltz";
-    }
+@Mnemonic("bltz")
+public class Bltz extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        int value = evaluator.getRegisterValue(operands.getFirst());
+        int value = evaluator.getRegister(operands.getFirst().index());
         if (value < 0) {
-            evaluator.branchToLabel(operands.get(1).value());
+            evaluator.branchTo(operands.get(1).target());
         }
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        return true; // Branch instructions don't have a destination register
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        int rs = operands.getFirst().index();
+        int target = operands.get(1).target();
+        int next = pc + 1;
+        return evaluator -> evaluator.getRegister(rs) < 0 ? target : next;
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 2) {
-            evaluator.getDiagnosticService().addError("Bltz instruction must have exactly 2 operand(s).");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 2, diagnosticService)) {
             return false;
         }
 
-        try {
-            Integer.parseInt(operands.getFirst().value());
-        } catch (NumberFormatException e) {
-            evaluator.getDiagnosticService().addError("Bltz instruction operand must be an integer.");
-            return false;
-        }
-
-        if (!evaluator.getIntRegisterOffsets().containsKey(operands.getFirst().value())) {
-            evaluator.getDiagnosticService().addError("Bltz instruction Register not found.");
-            return false;
-        }
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateLabel(operands.get(1), diagnosticService);
     }
 }
@@ -1,50 +1,42 @@
 package me.adversing.asm.instruction.impl.branch;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
-public class Bne implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "bne";
-    }
-
+@Mnemonic("bne")
+public class Bne extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        int value1 = evaluator.getRegisterValue(operands.getFirst());
-        int value2 = evaluator.getRegisterValue(operands.get(1));
-
+        int value1 = evaluator.getRegister(operands.getFirst().index());
+        int value2 = evaluator.getRegister(operands.get(1).index());
         if (value1 != value2) {
-            evaluator.branchToLabel(operands.get(2).value());
+            evaluator.branchTo(operands.get(2).target());
         }
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        return true; // Branch instructions don't have a destination register
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        int rs = operands.getFirst().index();
+        int rt = operands.get(1).index();
+        int target = operands.get(2).target();
+        int next = pc + 1;
+        return evaluator -> evaluator.getRegister(rs) != evaluator.getRegister(rt) ? target : next;
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 3) {
-            evaluator.getDiagnosticService().addError("Bne instruction must have exactly 3 operand(s).");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 3, diagnosticService)) {
             return false;
         }
 
-        
-
-        if (!evaluator.getIntRegisterOffsets().containsKey(operands.getFirst().value()) ||
-                !evaluator.getIntRegisterOffsets().containsKey(operands.get(1).value())) {
-            evaluator.getDiagnosticService().addError("Bne instruction registers not found.");
-            return false;
-        }
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateIntRegister(operands.get(1), diagnosticService) &&
+               validateLabel(operands.get(2), diagnosticService);
     }
 }
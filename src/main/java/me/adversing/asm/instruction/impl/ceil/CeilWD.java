@@ -1,59 +1,32 @@
 package me.adversing.asm.instruction.impl.ceil;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
 
 import java.util.List;
 
-public class CeilWD implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "ceil.w.d";
-    }
+@Mnemonic("ceil.w.d")
+public class CeilWD extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
+        double value = evaluator.getFpRegister(operands.get(1).index());
+        if (Double.isInfinite(value) || Double.isNaN(value)) {
+            evaluator.getDiagnosticService().addError("Invalid floating point value.");
             return;
         }
-
-        double value = evaluator.getFpRegisterValue(operands.get(1));
-        evaluator.setRegisterValue(operands.getFirst(), (int)Math.ceil(value));
-    }
-
-    @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getIntRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Register ." + register + " not found.");
-            return false;
-        }
-        return true;
+        evaluator.setRegister(operands.getFirst().index(), (int) Math.ceil(value));
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 2) {
-            evaluator.getDiagnosticService().addError("Ceil.w.d instruction must have exactly 2 operand(s).");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 2, diagnosticService)) {
             return false;
         }
 
-        if (!evaluator.getFpRegisterOffsets().containsKey(operands.get(1).value())) {
-            evaluator.getDiagnosticService().addError("Source registers not found.");
-            return false;
-        }
-
-        try {
-            Double.parseDouble(operands.get(1).value());
-        } catch (NumberFormatException e) {
-            evaluator.getDiagnosticService().addError("Ceil.w.d instruction operand must be a floating point value.");
-            return false;
-        }
-
-        double value = evaluator.getFpRegisterValue(operands.get(1));
-        if (Double.isInfinite(value) || Double.isNaN(value)) {
-            evaluator.getDiagnosticService().addError("Invalid floating point value.");
-            return false;
-        }
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateFpRegister(operands.get(1), diagnosticService);
     }
 }
@@ -1,53 +1,28 @@
 package me.adversing.asm.instruction.impl.convert;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
 
 import java.util.List;
 
-public class CvtDS implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "cvt.d.s";
-    }
+@Mnemonic("cvt.d.s")
+public class CvtDS extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        float value = (float) evaluator.getFpRegisterValue(operands.get(1));
-        evaluator.setFpRegisterValue(operands.getFirst(), (double) value);
-    }
-
-    @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getFpRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Register ." + register + " not found.");
-            return false;
-        }
-        return true;
+        float value = (float) evaluator.getFpRegister(operands.get(1).index());
+        evaluator.setFpRegister(operands.getFirst().index(), (double) value);
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 2) {
-            evaluator.getDiagnosticService().addError("Cvt.d.s instruction must have exactly 2 operand(s).");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 2, diagnosticService)) {
             return false;
         }
 
-        try {
-            Float.parseFloat(operands.get(1).value());
-        } catch (NumberFormatException e) {
-            evaluator.getDiagnosticService().addError("Cvt.d.s instruction operand must be a float.");
-            return false;
-        }
-
-        if (!evaluator.getFpRegisterOffsets().containsKey(operands.get(1).value())) {
-            evaluator.getDiagnosticService().addError("Source registers not found.");
-            return false;
-        }
-        return true;
+        return validateFpRegister(operands.getFirst(), diagnosticService) &&
+               validateFpRegister(operands.get(1), diagnosticService);
     }
 }
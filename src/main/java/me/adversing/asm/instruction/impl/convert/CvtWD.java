@@ -1,52 +1,32 @@
 package me.adversing.asm.instruction.impl.convert;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
 
 import java.util.List;
 
-public class CvtWD implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "cvt.w.d";
-    }
+@Mnemonic("cvt.w.d")
+public class CvtWD extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
+        double value = evaluator.getFpRegister(operands.get(1).index());
+        if (Double.isInfinite(value) || Double.isNaN(value)) {
+            evaluator.getDiagnosticService().addError("Invalid floating point value.");
             return;
         }
-
-        double value = evaluator.getFpRegisterValue(operands.get(1));
-        evaluator.setRegisterValue(operands.getFirst(), (int) value);
+        evaluator.setRegister(operands.getFirst().index(), (int) value);
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getIntRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Register ." + register + " not found.");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 2, diagnosticService)) {
             return false;
         }
-        return true;
-    }
 
-    @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 2) {
-            evaluator.getDiagnosticService().addError("Cvt.w.d instruction must have exactly 2 operand(s).");
-            return false;
-        }
-
-        if (!evaluator.getFpRegisterOffsets().containsKey(operands.get(1).value())) {
-            evaluator.getDiagnosticService().addError("Source Register not found.");
-            return false;
-        }
-
-        double value = evaluator.getFpRegisterValue(operands.get(1));
-        if (Double.isInfinite(value) || Double.isNaN(value)) {
-            evaluator.getDiagnosticService().addError("Invalid floating point value.");
-            return false;
-        }
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateFpRegister(operands.get(1), diagnosticService);
     }
 }
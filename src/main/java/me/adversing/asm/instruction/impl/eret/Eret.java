@@ -1,38 +1,24 @@
 package me.adversing.asm.instruction.impl.eret;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.instruction.handler.OperandConstants;
 
 import java.util.List;
 
-public class Eret implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "eret";
-    }
-
+@Mnemonic("eret")
+public class Eret extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        int returnAddress = evaluator.getCp0RegisterValue(new Operand("$epc"));
+        int returnAddress = evaluator.getCp0Register(OperandConstants.EPC_REGISTER.index());
         evaluator.setProgramCounter(returnAddress);
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        return true; // Eret doesn't have a destination register
-    }
-
-    @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!operands.isEmpty()) {
-            evaluator.getDiagnosticService().addError("Eret instruction must have no operands.");
-            return false;
-        }
-        return true;
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        return validateOperandCount(operands, 0, diagnosticService);
     }
 }
@@ -1,37 +1,33 @@
 package me.adversing.asm.instruction.impl.jump;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
-public class J implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "j";
-    }
-
+@Mnemonic("j")
+public class J extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        evaluator.jumpToLabel(operands.getFirst().value());
+        evaluator.jumpTo(operands.getFirst().target());
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        return true; // Jump instructions don't have a destination register
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        int target = operands.getFirst().target();
+        return evaluator -> target;
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 1) {
-            evaluator.getDiagnosticService().addError("J instruction must have exactly 1 operand(s).");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 1, diagnosticService)) {
             return false;
         }
-        return true;
+
+        return validateLabel(operands.getFirst(), diagnosticService);
     }
 }
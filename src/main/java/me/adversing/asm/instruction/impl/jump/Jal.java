@@ -1,40 +1,40 @@
 package me.adversing.asm.instruction.impl.jump;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
 import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
 import me.adversing.asm.instruction.handler.OperandConstants;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
+@Mnemonic("jal")
 public class Jal extends BaseInstructionHandler {
-    @Override
-    public String getName() {
-        return "jal";
-    }
-
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        evaluator.setRegisterValue(OperandConstants.RA_REGISTER, evaluator.getProgramCounter() + 1);
-        evaluator.jumpToLabel(operands.getFirst().value());
+        evaluator.setRegister(OperandConstants.RA_REGISTER.index(), evaluator.getProgramCounter() + 1);
+        evaluator.jumpTo(operands.getFirst().target());
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        return true; // Jump and link uses $ra register automatically
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        int ra = OperandConstants.RA_REGISTER.index();
+        int target = operands.getFirst().target();
+        int next = pc + 1;
+        return evaluator -> {
+            evaluator.setRegister(ra, next);
+            return target;
+        };
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 1) {
-            evaluator.getDiagnosticService().addError("Jal instruction must have exactly 1 operand(s).");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 1, diagnosticService)) {
             return false;
         }
-        return true;
+
+        return validateLabel(operands.getFirst(), diagnosticService);
     }
 }
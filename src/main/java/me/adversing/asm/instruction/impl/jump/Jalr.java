@@ -1,45 +1,29 @@
 package me.adversing.asm.instruction.impl.jump;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
 import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
 import me.adversing.asm.instruction.handler.OperandConstants;
-import me.adversing.asm.instruction.handler.InstructionHandler;
 
 import java.util.List;
 
+@Mnemonic("jalr")
 public class Jalr extends BaseInstructionHandler {
-    @Override
-    public String getName() {
-        return "jalr";
-    }
-
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        evaluator.setRegisterValue(OperandConstants.RA_REGISTER, evaluator.getProgramCounter() + 1);
-        evaluator.jumpToRegister(operands.getFirst().value());
+        int target = operands.getFirst().index();
+        evaluator.setRegister(OperandConstants.RA_REGISTER.index(), evaluator.getProgramCounter() + 1);
+        evaluator.jumpToRegister(target);
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        return true; // Jump and link register uses $ra register automatically
-    }
-
-    @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 1) {
-            evaluator.getDiagnosticService().addError("Jalr instruction must have exactly 1 operand(s).");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 1, diagnosticService)) {
             return false;
         }
 
-        if (!evaluator.getIntRegisterOffsets().containsKey(operands.getFirst().value())) {
-            evaluator.getDiagnosticService().addError("Source Register not found.");
-            return false;
-        }
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService);
     }
 }
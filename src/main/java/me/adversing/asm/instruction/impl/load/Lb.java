@@ -1,55 +1,46 @@
 package me.adversing.asm.instruction.impl.load;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
-public class Lb implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "lb";
-    }
-
+@Mnemonic("lb")
+public class Lb extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        int address = evaluator.getRegisterValue(operands.get(1));
-        byte value = evaluator.loadByteFromMemory(address);
-        evaluator.setRegisterValue(operands.getFirst(), value);
+        int address = evaluator.effectiveAddress(operands.get(1));
+        evaluator.setRegister(operands.getFirst().index(), evaluator.loadByteFromMemory(address));
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getIntRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Register ." + register + " not found.");
-            return false;
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        Operand address = operands.get(1);
+        if (!address.is(Operand.Kind.MEMORY) || address.symbol() != null) {
+            return super.compile(operands, pc);
         }
-        return true;
+
+        int rt = operands.getFirst().index();
+        int base = address.index();
+        int displacement = address.immediate();
+        int next = pc + 1;
+        return evaluator -> {
+            evaluator.setRegister(rt, evaluator.loadByteFromMemory(evaluator.getRegister(base) + displacement));
+            return next;
+        };
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 2) {
-            evaluator.getDiagnosticService().addError("Lb instruction must have exactly 2 operand(s).");
-            return false;
-        }
-
-        try {
-            Integer.parseInt(operands.get(1).value());
-        } catch (NumberFormatException e) {
-            evaluator.getDiagnosticService().addError("Lb instruction operand must be an integer.");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 2, diagnosticService)) {
             return false;
         }
 
-        if (!evaluator.getIntRegisterOffsets().containsKey(operands.get(1).value())) {
-            evaluator.getDiagnosticService().addError("Source Register not found.");
-            return false;
-        }
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateAddress(operands.get(1), diagnosticService);
     }
 }
@@ -1,49 +1,29 @@
 package me.adversing.asm.instruction.impl.load;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
 
 import java.util.List;
 
-public class Ldc1 implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "ldc1";
-    }
-
+@Mnemonic("ldc1")
+public class Ldc1 extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        int address = evaluator.getRegisterValue(operands.get(1));
+        int address = evaluator.effectiveAddress(operands.get(1));
         long value = evaluator.loadDoubleWordFromMemory(address);
-        double doubleValue = Double.longBitsToDouble(value);
-        evaluator.setFpRegisterValue(operands.getFirst(), doubleValue);
-    }
-
-    @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getFpRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Register ." + register + " not found.");
-            return false;
-        }
-        return true;
+        evaluator.setFpRegister(operands.getFirst().index(), Double.longBitsToDouble(value));
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 2) {
-            evaluator.getDiagnosticService().addError("Ldc1 instruction must have exactly 2 operand(s).");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 2, diagnosticService)) {
             return false;
         }
 
-        if (!evaluator.getIntRegisterOffsets().containsKey(operands.get(1).value())) {
-            evaluator.getDiagnosticService().addError("Source Register not found.");
-            return false;
-        }
-        return true;
+        return validateFpRegister(operands.getFirst(), diagnosticService) &&
+               validateAddress(operands.get(1), diagnosticService);
     }
 }
@@ -1,53 +1,39 @@
 package me.adversing.asm.instruction.impl.load;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
-public class Lui implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "lui";
-    }
-
+@Mnemonic("lui")
+public class Lui extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        int immediate = Integer.parseInt(operands.get(1).value());
-        evaluator.setRegisterValue(operands.getFirst(), immediate << 16);
+        evaluator.setRegister(operands.getFirst().index(), operands.get(1).immediate() << 16);
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getIntRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Register ." + register + " not found.");
-            return false;
-        }
-        return true;
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        int rt = operands.getFirst().index();
+        int value = operands.get(1).immediate() << 16;
+        int next = pc + 1;
+        return evaluator -> {
+            evaluator.setRegister(rt, value);
+            return next;
+        };
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 2) {
-            evaluator.getDiagnosticService().addError("Lui instruction must have exactly 2 operand(s).");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 2, diagnosticService)) {
             return false;
         }
 
-        try {
-            int immediate = Integer.parseInt(operands.get(1).value());
-            if (immediate < 0 || immediate > 0xFFFF) {
-                evaluator.getDiagnosticService().addError("Immediate value out of range.");
-                return false;
-            }
-        } catch (NumberFormatException e) {
-            evaluator.getDiagnosticService().addError("Invalid immediate value.");
-            return false;
-        }
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateImmediate(operands.get(1), 0, 0xFFFF, diagnosticService);
     }
 }
@@ -1,65 +1,46 @@
 package me.adversing.asm.instruction.impl.load;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
-public class Lw implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "lw";
-    }
-
+@Mnemonic("lw")
+public class Lw extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        String targetRegister = operands.getFirst().value();
-        String sourceLabel = operands.get(1).value();
-
-        Integer address = evaluator.getVariableAddress(sourceLabel);
-        if (address == null) {
-            evaluator.getDiagnosticService().addError("Label not found: ." + sourceLabel);
-            return;
-        }
-
-        int value = evaluator.loadWordFromMemory(address);
-
-        evaluator.setRegisterValue(new Operand(targetRegister), value);
+        int address = evaluator.effectiveAddress(operands.get(1));
+        evaluator.setRegister(operands.getFirst().index(), evaluator.loadWordFromMemory(address));
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getIntRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Register ." + register + " not found.");
-            return false;
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        Operand address = operands.get(1);
+        if (!address.is(Operand.Kind.MEMORY) || address.symbol() != null) {
+            return super.compile(operands, pc);
         }
-        return true;
+
+        int rt = operands.getFirst().index();
+        int base = address.index();
+        int displacement = address.immediate();
+        int next = pc + 1;
+        return evaluator -> {
+            evaluator.setRegister(rt, evaluator.loadWordFromMemory(evaluator.getRegister(base) + displacement));
+            return next;
+        };
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 2) {
-            evaluator.getDiagnosticService().addError("Lw instruction must have exactly 2 operand(s).");
-            return false;
-        }
-
-        String targetRegister = operands.getFirst().value();
-        String source = operands.get(1).value();
-
-        if (!evaluator.getIntRegisterOffsets().containsKey(targetRegister)) {
-            evaluator.getDiagnosticService().addError("Destination register (." + targetRegister + ") not found.");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 2, diagnosticService)) {
             return false;
         }
 
-        if (evaluator.getVariableAddress(source) == null) {
-            evaluator.getDiagnosticService().addError("Source label not found: ." + source);
-            return false;
-        }
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateAddress(operands.get(1), diagnosticService);
     }
 }
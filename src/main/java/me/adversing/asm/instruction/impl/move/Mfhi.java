@@ -1,36 +1,40 @@
 package me.adversing.asm.instruction.impl.move;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
 import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
 import me.adversing.asm.instruction.handler.OperandConstants;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
+@Mnemonic("mfhi")
 public class Mfhi extends BaseInstructionHandler {
-    
     @Override
-    public String getName() {
-        return "mfhi";
+    public void execute(List<Operand> operands, ASMEvaluator evaluator) {
+        int hiValue = evaluator.getRegister(OperandConstants.HI_REGISTER.index());
+        evaluator.setRegister(operands.getFirst().index(), hiValue);
     }
 
     @Override
-    public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        int hiValue = evaluator.getRegisterValue(OperandConstants.HI_REGISTER);
-        
-        evaluator.setRegisterValue(operands.getFirst(), hiValue);
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        int rd = operands.getFirst().index();
+        int source = OperandConstants.HI_REGISTER.index();
+        int next = pc + 1;
+        return evaluator -> {
+            evaluator.setRegister(rd, evaluator.getRegister(source));
+            return next;
+        };
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!validateOperandCount(operands, 1, evaluator)) {
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 1, diagnosticService)) {
             return false;
         }
-        
-        return validateIntRegister(operands.getFirst().value(), evaluator);
+
+        return validateIntRegister(operands.getFirst(), diagnosticService);
     }
 }
@@ -1,36 +1,40 @@
 package me.adversing.asm.instruction.impl.move;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
 import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
+@Mnemonic("move")
 public class Move extends BaseInstructionHandler {
-    
     @Override
-    public String getName() {
-        return "move";
+    public void execute(List<Operand> operands, ASMEvaluator evaluator) {
+        int sourceValue = evaluator.getRegister(operands.get(1).index());
+        evaluator.setRegister(operands.getFirst().index(), sourceValue);
     }
 
     @Override
-    public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        int sourceValue = evaluator.getRegisterValue(operands.get(1));
-        
-        evaluator.setRegisterValue(operands.getFirst(), sourceValue);
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        int rd = operands.getFirst().index();
+        int rs = operands.get(1).index();
+        int next = pc + 1;
+        return evaluator -> {
+            evaluator.setRegister(rd, evaluator.getRegister(rs));
+            return next;
+        };
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!validateOperandCount(operands, 2, evaluator)) {
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 2, diagnosticService)) {
             return false;
         }
-        
-        return validateIntRegister(operands.getFirst().value(), evaluator) &&
-               validateIntRegister(operands.get(1).value(), evaluator);
+
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateIntRegister(operands.get(1), diagnosticService);
     }
 }
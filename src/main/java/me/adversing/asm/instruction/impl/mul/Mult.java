@@ -1,44 +1,32 @@
 package me.adversing.asm.instruction.impl.mul;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
 import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
 import me.adversing.asm.instruction.handler.OperandConstants;
 
 import java.util.List;
 
+@Mnemonic("mult")
 public class Mult extends BaseInstructionHandler {
-    @Override
-    public String getName() {
-        return "mult";
-    }
-
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        long value1 = evaluator.getRegisterValue(operands.getFirst());
-        long value2 = evaluator.getRegisterValue(operands.get(1));
+        long value1 = evaluator.getRegister(operands.getFirst().index());
+        long value2 = evaluator.getRegister(operands.get(1).index());
         long result = value1 * value2;
-
-        evaluator.setRegisterValue(OperandConstants.LO_REGISTER, (int)(result & 0xFFFFFFFFL));
-        evaluator.setRegisterValue(OperandConstants.HI_REGISTER, (int)(result >> 32));
-    }
-
-    @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        return true; // Mult uses special registers HI and LO
+        evaluator.setRegister(OperandConstants.LO_REGISTER.index(), (int)(result & 0xFFFFFFFFL));
+        evaluator.setRegister(OperandConstants.HI_REGISTER.index(), (int)(result >> 32));
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!validateOperandCount(operands, 2, evaluator)) {
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 2, diagnosticService)) {
             return false;
         }
 
-        return validateIntRegister(operands.getFirst().value(), evaluator) &&
-               validateIntRegister(operands.get(1).value(), evaluator);
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateIntRegister(operands.get(1), diagnosticService);
     }
 }
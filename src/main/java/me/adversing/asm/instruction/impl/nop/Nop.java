@@ -1,34 +1,29 @@
 package me.adversing.asm.instruction.impl.nop;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
-public class Nop implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "nop";
-    }
-
+@Mnemonic("nop")
+public class Nop extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        checkOperands(operands, evaluator);
         // NOP instruction performs no operation
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        return true; // Nop doesn't use any registers
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        int next = pc + 1;
+        return evaluator -> next;
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!operands.isEmpty()) {
-            evaluator.getDiagnosticService().addError("Nop instruction must have no operands.");
-            return false;
-        }
-        return true;
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        return validateOperandCount(operands, 0, diagnosticService);
     }
 }
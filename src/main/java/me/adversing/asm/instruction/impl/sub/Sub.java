@@ -1,58 +1,52 @@
 package me.adversing.asm.instruction.impl.sub;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
+import me.adversing.asm.program.CompiledInstruction;
 
 import java.util.List;
 
-public class Sub implements InstructionHandler {
+@Mnemonic("sub")
+public class Sub extends BaseInstructionHandler {
     @Override
-    public String getName() {
-        return "sub";
+    public void execute(List<Operand> operands, ASMEvaluator evaluator) {
+        sub(evaluator, operands.getFirst().index(),
+                evaluator.getRegister(operands.get(1).index()),
+                evaluator.getRegister(operands.get(2).index()));
     }
 
     @Override
-    public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        int value1 = evaluator.getRegisterValue(operands.get(1));
-        int value2 = evaluator.getRegisterValue(operands.get(2));
+    public CompiledInstruction compile(List<Operand> operands, int pc) {
+        int rd = operands.getFirst().index();
+        int rs = operands.get(1).index();
+        int rt = operands.get(2).index();
+        int next = pc + 1;
+        return evaluator -> {
+            sub(evaluator, rd, evaluator.getRegister(rs), evaluator.getRegister(rt));
+            return next;
+        };
+    }
 
+    private static void sub(ASMEvaluator evaluator, int rd, int value1, int value2) {
         if ((value2 > 0 && value1 < Integer.MIN_VALUE + value2) ||
                 (value2 < 0 && value1 > Integer.MAX_VALUE + value2)) {
             evaluator.getDiagnosticService().addError("Arithmetic overflow in subtraction.");
             return;
         }
-
-        evaluator.setRegisterValue(operands.getFirst(), value1 - value2);
+        evaluator.setRegister(rd, value1 - value2);
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        if (!evaluator.getIntRegisterOffsets().containsKey(register)) {
-            evaluator.getDiagnosticService().addError("Register ." + register + " not found.");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 3, diagnosticService)) {
             return false;
         }
-        return true;
-    }
 
-    @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 3) {
-            evaluator.getDiagnosticService().addError("Sub instruction must have exactly 3 operand(s).");
-            return false;
-        }
-
-        
-
-        if (!evaluator.getIntRegisterOffsets().containsKey(operands.get(1).value()) ||
-                !evaluator.getIntRegisterOffsets().containsKey(operands.get(2).value())) {
-            evaluator.getDiagnosticService().addError("Source registers not found.");
-            return false;
-        }
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateIntRegister(operands.get(1), diagnosticService) &&
+               validateIntRegister(operands.get(2), diagnosticService);
     }
 }
@@ -1,36 +1,28 @@
 package me.adversing.asm.instruction.impl.syscall;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
 import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
 import me.adversing.asm.instruction.handler.OperandConstants;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 
+@Mnemonic("syscall")
 public class Syscall extends BaseInstructionHandler {
 
-    private static final BufferedReader STDIN_READER = new BufferedReader(new InputStreamReader(System.in));
     private static final int MAX_SBRK_SIZE = 16 * 1024 * 1024;
-    private static int heapPointer = 0x10000000; // start at 256MB
-
-    @Override
-    public String getName() {
-        return "syscall";
-    }
+    private static final int MAX_STRING_LENGTH = 65536;
 
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
         // Get syscall value from $v0 register
-        int syscallValue = evaluator.getRegisterValue(OperandConstants.V0_REGISTER);
+        int syscallValue = evaluator.getRegister(OperandConstants.V0_REGISTER.index());
 
         switch (syscallValue) {
             case -1:
@@ -79,19 +71,36 @@ public class Syscall extends BaseInstructionHandler {
             case 17: // exit2 (exit with code)
                 exit2(evaluator);
                 break;
+            case 60: // memcpy
+                memcpy(evaluator);
+                break;
+            case 61: // memset
+                memset(evaluator);
+                break;
+            case 62: // memcmp
+                memcmp(evaluator);
+                break;
+            case 63: // strlen
+                strlen(evaluator);
+                break;
             default:
                 evaluator.getDiagnosticService().addError("Unsupported syscall value: " + syscallValue);
         }
     }
 
+    /*
+     * The print syscalls write to the evaluator's buffered ProgramOutput, without adding line
+     * breaks; numbers are passed as they are and the ProgramOutput formats them into its buffer.
+     */
+
     /**
      * Syscall 1: Print integer from $a0 register.
      *
      * @param evaluator the ASM evaluator instance
      */
     private void printInteger(ASMEvaluator evaluator) {
-        int intToPrint = evaluator.getRegisterValue(OperandConstants.A0_REGISTER);
-        evaluator.getProgramLogger().info(intToPrint);
+        int intToPrint = evaluator.getRegister(OperandConstants.A0_REGISTER.index());
+        evaluator.getOutput().print(intToPrint);
     }
 
     /**
@@ -101,9 +110,9 @@ public class Syscall extends BaseInstructionHandler {
      */
     private void printFloat(ASMEvaluator evaluator) {
         try {
-            double doubleValue = evaluator.getFpRegisterValue(OperandConstants.F12_REGISTER);
+            double doubleValue = evaluator.getFpRegister(OperandConstants.F12_REGISTER.index());
             float floatValue = (float) doubleValue;
-            evaluator.getProgramLogger().info(floatValue);
+            evaluator.getOutput().print(floatValue);
         } catch (Exception e) {
             evaluator.getDiagnosticService().addError("Error accessing floating-point register $f12: " + e.getMessage());
         }
@@ -116,8 +125,8 @@ public class Syscall extends BaseInstructionHandler {
      */
     private void printDouble(ASMEvaluator evaluator) {
         try {
-            double doubleValue = evaluator.getFpRegisterValue(OperandConstants.F12_REGISTER);
-            evaluator.getProgramLogger().info(doubleValue);
+            double doubleValue = evaluator.getFpRegister(OperandConstants.F12_REGISTER.index());
+            evaluator.getOutput().print(doubleValue);
         } catch (Exception e) {
             evaluator.getDiagnosticService().addError("Error accessing floating-point register $f12: " + e.getMessage());
         }
@@ -129,26 +138,20 @@ public class Syscall extends BaseInstructionHandler {
      * @param evaluator the ASM evaluator instance
      */
     private void printString(ASMEvaluator evaluator) {
-        int address = evaluator.getRegisterValue(OperandConstants.A0_REGISTER);
+        int address = evaluator.getRegister(OperandConstants.A0_REGISTER.index());
         if (address < 0) {
             evaluator.getDiagnosticService().addError("Invalid memory address for string: " + address);
             return;
         }
 
-        StringBuilder strBuilder = new StringBuilder();
         try {
-            byte b;
-            int currentAddress = address;
-            while ((b = evaluator.loadByteFromMemory(currentAddress++)) != 0) {
-                strBuilder.append((char) b);
-                if (strBuilder.length() > 65536) {
-                    evaluator.getDiagnosticService().addError("String too long (>64KB) or not null-terminated");
-                    return;
-                }
+            int length = evaluator.stringLength(address, MAX_STRING_LENGTH);
+            if (length < 0) {
+                evaluator.getDiagnosticService().addError("String too long (>64KB) or not null-terminated");
+                return;
             }
-            String rawString = strBuilder.toString();
-            String processedString = parseEscapeSequences(rawString);
-            evaluator.getProgramLogger().info(processedString);
+
+            evaluator.printMemory(address, length); // escapes were decoded when the program was assembled
         } catch (Exception e) {
             evaluator.getDiagnosticService().addError("Error reading string from memory at address " + address + ": " + e.getMessage());
         }
@@ -160,9 +163,8 @@ public class Syscall extends BaseInstructionHandler {
      * @param evaluator the ASM evaluator instance
      */
     private void printCharacter(ASMEvaluator evaluator) {
-        int charToPrint = evaluator.getRegisterValue(OperandConstants.A0_REGISTER);
-        char character = (char) (charToPrint & 0xFF); // Ensure it's a valid ASCII character
-        evaluator.getProgramLogger().info(character);
+        int charToPrint = evaluator.getRegister(OperandConstants.A0_REGISTER.index());
+        evaluator.getOutput().write((byte) charToPrint); // the low byte, as on MIPS
     }
 
     /**
@@ -172,7 +174,7 @@ public class Syscall extends BaseInstructionHandler {
      */
     private void readInteger(ASMEvaluator evaluator) {
         try {
-            String line = STDIN_READER.readLine();
+            String line = evaluator.getSyscallContext().readLine();
             if (line == null) {
                 evaluator.getDiagnosticService().addError("End of input reached while reading integer");
                 return;
@@ -180,20 +182,20 @@ public class Syscall extends BaseInstructionHandler {
 
             line = line.trim();
             if (line.isEmpty()) {
-                evaluator.setRegisterValue(OperandConstants.V0_REGISTER, 0);
+                evaluator.setRegister(OperandConstants.V0_REGISTER.index(), 0);
                 return;
             }
 
             String[] parts = line.split("\\s+");
             int value = Integer.parseInt(parts[0]);
-            evaluator.setRegisterValue(OperandConstants.V0_REGISTER, value);
+            evaluator.setRegister(OperandConstants.V0_REGISTER.index(), value);
 
         } catch (NumberFormatException e) {
             evaluator.getDiagnosticService().addError("Invalid integer format in input: " + e.getMessage());
-            evaluator.setRegisterValue(OperandConstants.V0_REGISTER, 0);
+            evaluator.setRegister(OperandConstants.V0_REGISTER.index(), 0);
         } catch (IOException e) {
             evaluator.getDiagnosticService().addError("I/O error while reading integer: " + e.getMessage());
-            evaluator.setRegisterValue(OperandConstants.V0_REGISTER, 0);
+            evaluator.setRegister(OperandConstants.V0_REGISTER.index(), 0);
         }
     }
 
@@ -204,7 +206,7 @@ public class Syscall extends BaseInstructionHandler {
      */
     private void readFloat(ASMEvaluator evaluator) {
         try {
-            String line = STDIN_READER.readLine();
+            String line = evaluator.getSyscallContext().readLine();
             if (line == null) {
                 evaluator.getDiagnosticService().addError("End of input reached while reading float");
                 return;
@@ -212,20 +214,20 @@ public class Syscall extends BaseInstructionHandler {
 
             line = line.trim();
             if (line.isEmpty()) {
-                evaluator.setFpRegisterValue(OperandConstants.F0_REGISTER, 0.0f);
+                evaluator.setFpRegister(OperandConstants.F0_REGISTER.index(), 0.0f);
                 return;
             }
 
             String[] parts = line.split("\\s+");
             float value = Float.parseFloat(parts[0]);
-            evaluator.setFpRegisterValue(OperandConstants.F0_REGISTER, value);
+            evaluator.setFpRegister(OperandConstants.F0_REGISTER.index(), value);
 
         } catch (NumberFormatException e) {
             evaluator.getDiagnosticService().addError("Invalid float format in input: " + e.getMessage());
-            evaluator.setFpRegisterValue(OperandConstants.F0_REGISTER, 0.0f);
+            evaluator.setFpRegister(OperandConstants.F0_REGISTER.index(), 0.0f);
         } catch (IOException e) {
             evaluator.getDiagnosticService().addError("I/O error while reading float: " + e.getMessage());
-            evaluator.setFpRegisterValue(OperandConstants.F0_REGISTER, 0.0f);
+            evaluator.setFpRegister(OperandConstants.F0_REGISTER.index(), 0.0f);
         } catch (Exception e) {
             evaluator.getDiagnosticService().addError("Error accessing floating-point register $f0: " + e.getMessage());
         }
@@ -238,7 +240,7 @@ public class Syscall extends BaseInstructionHandler {
      */
     private void readDouble(ASMEvaluator evaluator) {
         try {
-            String line = STDIN_READER.readLine();
+            String line = evaluator.getSyscallContext().readLine();
             if (line == null) {
                 evaluator.getDiagnosticService().addError("End of input reached while reading double");
                 return;
@@ -246,20 +248,20 @@ public class Syscall extends BaseInstructionHandler {
 
             line = line.trim();
             if (line.isEmpty()) {
-                evaluator.setFpRegisterValue(OperandConstants.F0_REGISTER, 0.0);
+                evaluator.setFpRegister(OperandConstants.F0_REGISTER.index(), 0.0);
                 return;
             }
 
             String[] parts = line.split("\\s+");
             double value = Double.parseDouble(parts[0]);
-            evaluator.setFpRegisterValue(OperandConstants.F0_REGISTER, value);
+            evaluator.setFpRegister(OperandConstants.F0_REGISTER.index(), value);
 
         } catch (NumberFormatException e) {
             evaluator.getDiagnosticService().addError("Invalid double format in input: " + e.getMessage());
-            evaluator.setFpRegisterValue(OperandConstants.F0_REGISTER, 0.0);
+            evaluator.setFpRegister(OperandConstants.F0_REGISTER.index(), 0.0);
         } catch (IOException e) {
             evaluator.getDiagnosticService().addError("I/O error while reading double: " + e.getMessage());
-            evaluator.setFpRegisterValue(OperandConstants.F0_REGISTER, 0.0);
+            evaluator.setFpRegister(OperandConstants.F0_REGISTER.index(), 0.0);
         } catch (Exception e) {
             evaluator.getDiagnosticService().addError("Error accessing floating-point register $f0: " + e.getMessage());
         }
@@ -272,8 +274,8 @@ public class Syscall extends BaseInstructionHandler {
      * @param evaluator the ASM evaluator instance
      */
     private void readString(ASMEvaluator evaluator) {
-        int bufferAddress = evaluator.getRegisterValue(OperandConstants.A0_REGISTER);
-        int maxLength = evaluator.getRegisterValue(OperandConstants.A1_REGISTER);
+        int bufferAddress = evaluator.getRegister(OperandConstants.A0_REGISTER.index());
+        int maxLength = evaluator.getRegister(OperandConstants.A1_REGISTER.index());
 
         if (bufferAddress < 0) {
             evaluator.getDiagnosticService().addError("Invalid buffer address for read_string: " + bufferAddress);
@@ -286,7 +288,7 @@ public class Syscall extends BaseInstructionHandler {
         }
 
         try {
-            String line = STDIN_READER.readLine();
+            String line = evaluator.getSyscallContext().readLine();
             if (line == null) {
                 // EOF - store empty string
                 evaluator.storeByteToMemory(bufferAddress, (byte) 0);
@@ -294,15 +296,10 @@ public class Syscall extends BaseInstructionHandler {
             }
 
             // limit string to maxLength - 1 characters (reserve space for null terminator)
-            int lengthToStore = Math.min(line.length(), maxLength - 1);
-
-            // store characters to memory
-            for (int i = 0; i < lengthToStore; i++) {
-                char c = line.charAt(i);
-                evaluator.storeByteToMemory(bufferAddress + i, (byte) c);
-            }
+            byte[] bytes = line.getBytes(StandardCharsets.ISO_8859_1);
+            int lengthToStore = Math.min(bytes.length, maxLength - 1);
 
-            // add null terminator
+            evaluator.copyToMemory(bufferAddress, bytes, 0, lengthToStore);
             evaluator.storeByteToMemory(bufferAddress + lengthToStore, (byte) 0);
 
         } catch (IOException e) {
@@ -321,16 +318,16 @@ public class Syscall extends BaseInstructionHandler {
      */
     private void readCharacter(ASMEvaluator evaluator) {
         try {
-            int character = System.in.read();
+            int character = evaluator.getSyscallContext().read();
             if (character == -1) {
                 // EOF
-                evaluator.setRegisterValue(OperandConstants.V0_REGISTER, 0);
+                evaluator.setRegister(OperandConstants.V0_REGISTER.index(), 0);
             } else {
-                evaluator.setRegisterValue(OperandConstants.V0_REGISTER, character & 0xFF);
+                evaluator.setRegister(OperandConstants.V0_REGISTER.index(), character & 0xFF);
             }
         } catch (IOException e) {
             evaluator.getDiagnosticService().addError("I/O error while reading character: " + e.getMessage());
-            evaluator.setRegisterValue(OperandConstants.V0_REGISTER, 0);
+            evaluator.setRegister(OperandConstants.V0_REGISTER.index(), 0);
         }
     }
 
@@ -342,30 +339,26 @@ public class Syscall extends BaseInstructionHandler {
      * @param evaluator the ASM evaluator instance
      */
     private void sbrk(ASMEvaluator evaluator) {
-        int bytesToAllocate = evaluator.getRegisterValue(OperandConstants.A0_REGISTER);
+        int bytesToAllocate = evaluator.getRegister(OperandConstants.A0_REGISTER.index());
 
         if (bytesToAllocate < 0) {
             evaluator.getDiagnosticService().addError("Invalid allocation size for sbrk: " + bytesToAllocate);
-            evaluator.setRegisterValue(OperandConstants.V0_REGISTER, -1);
+            evaluator.setRegister(OperandConstants.V0_REGISTER.index(), -1);
             return;
         }
 
         if (bytesToAllocate > MAX_SBRK_SIZE) {
             evaluator.getDiagnosticService().addError("Allocation size too large for sbrk: " + bytesToAllocate + " (max: " + MAX_SBRK_SIZE + ")");
-            evaluator.setRegisterValue(OperandConstants.V0_REGISTER, -1);
+            evaluator.setRegister(OperandConstants.V0_REGISTER.index(), -1);
             return;
         }
 
-        // return current heap pointer and advance it
-        int currentHeap = heapPointer;
-        heapPointer += bytesToAllocate;
-
-        // word-align the heap pointer for next allocation
-        if (heapPointer % 4 != 0) {
-            heapPointer += 4 - (heapPointer % 4);
+        int currentHeap = evaluator.sbrk(bytesToAllocate);
+        if (currentHeap == -1) {
+            evaluator.getDiagnosticService().addError("Out of heap memory in sbrk: " + bytesToAllocate + " bytes requested");
         }
 
-        evaluator.setRegisterValue(OperandConstants.V0_REGISTER, currentHeap);
+        evaluator.setRegister(OperandConstants.V0_REGISTER.index(), currentHeap);
     }
 
     /**
@@ -375,87 +368,87 @@ public class Syscall extends BaseInstructionHandler {
      * @param evaluator the ASM evaluator instance
      */
     private void exit2(ASMEvaluator evaluator) {
-        int exitCode = evaluator.getRegisterValue(OperandConstants.A0_REGISTER);
-        CompletableFuture<Void> shutdownTask = evaluator.shutdown(this);
+        int exitCode = evaluator.getRegister(OperandConstants.A0_REGISTER.index());
+        CompletableFuture<Void> shutdownTask = evaluator.shutdown(this, exitCode);
         shutdownTask.exceptionally(ex -> {
             evaluator.getDiagnosticService().addError("Error while shutting down the program: " + ex.getMessage());
             return null;
         });
+    }
 
-        evaluator.handleShutdown(exitCode);
+    /**
+     * Syscall 60: memcpy - Copy a block of memory. The blocks may overlap.
+     * $a0 = destination, $a1 = source, $a2 = number of bytes
+     * Returns the destination in $v0 register
+     *
+     * @param evaluator the ASM evaluator instance
+     */
+    private void memcpy(ASMEvaluator evaluator) {
+        int destination = evaluator.getRegister(OperandConstants.A0_REGISTER.index());
+        int source = evaluator.getRegister(OperandConstants.A1_REGISTER.index());
+        int length = evaluator.getRegister(OperandConstants.A2_REGISTER.index());
+        if (validateLength(evaluator, "memcpy", length)) {
+            evaluator.copyMemory(destination, source, length);
+            evaluator.setRegister(OperandConstants.V0_REGISTER.index(), destination);
+        }
     }
 
     /**
-     * Parse escape sequences in strings (e.g., \n, \t, \\, \").
+     * Syscall 61: memset - Fill a block of memory with a byte.
+     * $a0 = destination, $a1 = byte value (low 8 bits), $a2 = number of bytes
+     * Returns the destination in $v0 register
      *
-     * @param input the raw string with escape sequences
-     * @return the processed string with escape sequences converted
+     * @param evaluator the ASM evaluator instance
      */
-    private String parseEscapeSequences(String input) {
-        StringBuilder result = new StringBuilder();
-        boolean escape = false;
-
-        for (int i = 0; i < input.length(); i++) {
-            char current = input.charAt(i);
-            if (escape) {
-                switch (current) {
-                    case 'n':
-                        result.append('\n');
-                        break;
-                    case 't':
-                        result.append('\t');
-                        break;
-                    case 'r':
-                        result.append('\r');
-                        break;
-                    case 'b':
-                        result.append('\b');
-                        break;
-                    case 'f':
-                        result.append('\f');
-                        break;
-                    case '\\':
-                        result.append('\\');
-                        break;
-                    case '\"':
-                        result.append('\"');
-                        break;
-                    case '\'':
-                        result.append('\'');
-                        break;
-                    case '0':
-                        result.append('\0');
-                        break;
-                    default: // unk
-                        result.append('\\').append(current);
-                        break;
-                }
-                escape = false;
-            } else {
-                if (current == '\\') {
-                    escape = true;
-                } else {
-                    result.append(current);
-                }
-            }
+    private void memset(ASMEvaluator evaluator) {
+        int destination = evaluator.getRegister(OperandConstants.A0_REGISTER.index());
+        int value = evaluator.getRegister(OperandConstants.A1_REGISTER.index());
+        int length = evaluator.getRegister(OperandConstants.A2_REGISTER.index());
+        if (validateLength(evaluator, "memset", length)) {
+            evaluator.fillMemory(destination, length, (byte) value);
+            evaluator.setRegister(OperandConstants.V0_REGISTER.index(), destination);
         }
+    }
 
-        if (escape) {
-            result.append('\\');
+    /**
+     * Syscall 62: memcmp - Compare two blocks of memory as unsigned bytes.
+     * $a0 = first block, $a1 = second block, $a2 = number of bytes
+     * Returns 0 if they are equal, otherwise the difference of the first bytes that differ, in $v0 register
+     *
+     * @param evaluator the ASM evaluator instance
+     */
+    private void memcmp(ASMEvaluator evaluator) {
+        int first = evaluator.getRegister(OperandConstants.A0_REGISTER.index());
+        int second = evaluator.getRegister(OperandConstants.A1_REGISTER.index());
+        int length = evaluator.getRegister(OperandConstants.A2_REGISTER.index());
+        if (validateLength(evaluator, "memcmp", length)) {
+            evaluator.setRegister(OperandConstants.V0_REGISTER.index(), evaluator.compareMemory(first, second, length));
         }
+    }
 
-        return result.toString();
+    /**
+     * Syscall 63: strlen - Length of the null-terminated string at address in $a0 register.
+     * Returns the length in $v0 register
+     *
+     * @param evaluator the ASM evaluator instance
+     */
+    private void strlen(ASMEvaluator evaluator) {
+        int address = evaluator.getRegister(OperandConstants.A0_REGISTER.index());
+        evaluator.setRegister(OperandConstants.V0_REGISTER.index(), evaluator.stringLength(address, Integer.MAX_VALUE));
     }
 
-    @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        return true; // Syscall doesn't use a destination register
+    private static boolean validateLength(ASMEvaluator evaluator, String syscall, int length) {
+        if (length < 0) {
+            evaluator.getDiagnosticService().addError("Invalid length for " + syscall + ": " + length);
+            return false;
+        }
+        return true;
     }
 
     @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
         if (!operands.isEmpty()) {
-            evaluator.getDiagnosticService().addError("Syscall instruction must have no operands.");
+            diagnosticService.addError("Syscall instruction must have no operands.");
             return false;
         }
         return true;
@@ -1,54 +1,31 @@
 package me.adversing.asm.instruction.impl.trap;
 
 import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
 import me.adversing.asm.engine.ASMEvaluator;
-import me.adversing.asm.instruction.handler.InstructionHandler;
+import me.adversing.asm.instruction.handler.BaseInstructionHandler;
+import me.adversing.asm.instruction.handler.Mnemonic;
 
 import java.util.List;
 
-public class Tgeiu implements InstructionHandler {
-    @Override
-    public String getName() {
-        return "tgeiu";
-    }
-
+@Mnemonic("tgeiu")
+public class Tgeiu extends BaseInstructionHandler {
     @Override
     public void execute(List<Operand> operands, ASMEvaluator evaluator) {
-        if (!checkOperands(operands, evaluator)) {
-            return;
-        }
-
-        long value = evaluator.getRegisterValue(operands.getFirst()) & 0xFFFFFFFFL;
-        long immediate = Integer.parseInt(operands.get(1).value()) & 0xFFFFFFFFL;
-
-        if (value >= immediate) {
+        int value1 = evaluator.getRegister(operands.getFirst().index());
+        int value2 = operands.get(1).immediate();
+        if (Integer.compareUnsigned(value1, value2) >= 0) {
             evaluator.getDiagnosticService().addError("Trap exception: unsigned value is greater than or equal to immediate.");
         }
     }
 
     @Override
-    public boolean checkDestinationRegister(String register, ASMEvaluator evaluator) {
-        return true; // No destination register
-    }
-
-    @Override
-    public boolean checkOperands(List<Operand> operands, ASMEvaluator evaluator) {
-        if (operands.size() != 2) {
-            evaluator.getDiagnosticService().addError("Tgeiu instruction must have exactly 2 operand(s).");
+    public boolean checkOperands(List<Operand> operands, DiagnosticService diagnosticService) {
+        if (!validateOperandCount(operands, 2, diagnosticService)) {
             return false;
         }
 
-        if (!evaluator.getIntRegisterOffsets().containsKey(operands.getFirst().value())) {
-            evaluator.getDiagnosticService().addError("Source Register not found.");
-            return false;
-        }
-
-        try {
-            Integer.parseInt(operands.get(1).value());
-        } catch (NumberFormatException e) {
-            evaluator.getDiagnosticService().addError("Invalid immediate value.");
-            return false;
-        }
-        return true;
+        return validateIntRegister(operands.getFirst(), diagnosticService) &&
+               validateImmediate(operands.get(1), diagnosticService);
     }
 }
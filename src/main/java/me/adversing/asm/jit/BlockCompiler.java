@@ -0,0 +1,528 @@
+package me.adversing.asm.jit;
+
+import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.exception.MemoryAccessException;
+import me.adversing.asm.engine.ASMEvaluator;
+import me.adversing.asm.engine.Registers;
+import me.adversing.asm.instruction.handler.OperandConstants;
+import me.adversing.asm.program.CompiledInstruction;
+import me.adversing.asm.program.DecodedInstruction;
+import me.adversing.asm.program.DecodedProgram;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates a straight-line run of MIPS instructions into a hidden JVM class.
+ * <p>
+ * The generated {@link CompiledInstruction} loads every MIPS register the block touches
+ * into a JVM local, runs the whole block on locals and writes modified registers back
+ * only when it exits. A block ends at its first unsupported instruction or at a
+ * conditional branch / {@code j}; a branch back to the block's own start becomes a loop
+ * inside the generated method, so a hot loop body never leaves compiled code. That
+ * back-edge is the block's only safepoint: it calls {@link ASMEvaluator#continueLoop(int)},
+ * which counts the iteration, and leaves the block when a halt is pending or the
+ * instruction budget is spent.
+ * <p>
+ * Every load and store is covered by an exception handler. When it faults, the handler
+ * writes the registers back, retires the instructions that ran before it and rethrows the
+ * {@link MemoryAccessException} at the faulting instruction's index, so the address error
+ * is reported exactly as the other execution modes report it.
+ */
+public final class BlockCompiler {
+    static final int MAX_BLOCK_LENGTH = 256;
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final String CLASS_NAME     = "me/adversing/asm/jit/CompiledBlock";
+    private static final String EVALUATOR      = "me/adversing/asm/engine/ASMEvaluator";
+    private static final String INSTRUCTION    = "me/adversing/asm/program/CompiledInstruction";
+    private static final String RUNTIME        = "me/adversing/asm/jit/JitRuntime";
+    private static final String MEMORY_FAULT   = "me/adversing/asm/diagnostic/exception/MemoryAccessException";
+    private static final String RUN_DESCRIPTOR = "(L" + EVALUATOR + ";)I";
+
+    private static final int EVALUATOR_LOCAL = 1;
+    private static final int FIRST_REGISTER_LOCAL = 2;
+
+    private static final Set<String> STRAIGHT_LINE = Set.of(
+            "add", "addu", "addi", "addiu", "sub", "subu", "mul",
+            "and", "andi", "or", "ori", "xor", "xori", "nor",
+            "slt", "sltu", "slti", "sltiu",
+            "sll", "srl", "sra", "sllv", "srlv", "srav",
+            "li", "lui", "move", "mfhi", "mflo", "nop",
+            "lw", "lb", "lbu", "lh", "lhu", "sw", "sb", "sh"
+    );
+    private static final Set<String> MEMORY_ACCESS = Set.of("lw", "lb", "lbu", "lh", "lhu", "sw", "sb", "sh");
+    private static final Set<String> TERMINATORS = Set.of("beq", "bne", "bgez", "bgtz", "blez", "bltz", "j");
+    private static final Set<String> CONTROL_TRANSFERS = Set.of(
+            "beq", "bne", "bgez", "bgtz", "blez", "bltz", "bgezal", "bltzal", "j", "jal", "jr", "jalr", "eret"
+    );
+
+    private final DecodedProgram program;
+
+    public BlockCompiler(DecodedProgram program) {
+        this.program = program;
+    }
+
+    /**
+     * @return indices where a basic block starts: the entry point, every label target
+     *         and every instruction following a control transfer
+     */
+    public BitSet leaders() {
+        BitSet leaders = new BitSet(program.size());
+        leaders.set(0);
+        for (int i = 0; i < program.size(); i++) {
+            DecodedInstruction instruction = program.get(i);
+            for (Operand operand : instruction.operands()) {
+                if (operand.is(Operand.Kind.LABEL) && operand.target() < program.size()) {
+                    leaders.set(operand.target());
+                }
+            }
+            if (CONTROL_TRANSFERS.contains(instruction.handler().getName()) && i + 1 < program.size()) {
+                leaders.set(i + 1);
+            }
+        }
+        return leaders;
+    }
+
+    /**
+     * @return whether a block starting at {@code start} would contain at least one instruction
+     */
+    public boolean isCompilable(int start) {
+        return !block(start).isEmpty();
+    }
+
+    /**
+     * Compiles the block starting at {@code start} and loads it as a hidden class.
+     *
+     * @throws IllegalStateException if no instruction at {@code start} can be compiled
+     *                               or the generated class fails to load
+     */
+    public CompiledInstruction compile(int start) {
+        List<DecodedInstruction> block = block(start);
+        if (block.isEmpty()) {
+            throw new IllegalStateException("No compilable instruction at " + start);
+        }
+
+        Map<Integer, Integer> locals = new LinkedHashMap<>();
+        BitSet written = new BitSet();
+        for (DecodedInstruction instruction : block) {
+            collectRegisters(instruction, locals, written);
+        }
+
+        ClassFileWriter classFile = new ClassFileWriter(CLASS_NAME);
+        classFile.addInterface(INSTRUCTION);
+
+        CodeBuilder constructor = new CodeBuilder(classFile, 1);
+        constructor.aload(0);
+        constructor.invokeSpecial("java/lang/Object", "<init>", "()V");
+        constructor.vreturn();
+        classFile.addMethod("<init>", "()V", constructor);
+
+        CodeBuilder code = new CodeBuilder(classFile, FIRST_REGISTER_LOCAL + locals.size());
+        new Emitter(code, locals, written, start, block.size()).emitBlock(block);
+        classFile.addMethod("run", RUN_DESCRIPTOR, code);
+
+        try {
+            MethodHandles.Lookup lookup = LOOKUP.defineHiddenClass(classFile.toByteArray(), true);
+            return (CompiledInstruction) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to load compiled block at " + start, e);
+        }
+    }
+
+    private List<DecodedInstruction> block(int start) {
+        List<DecodedInstruction> block = new ArrayList<>();
+        for (int i = start; i < program.size() && block.size() < MAX_BLOCK_LENGTH; i++) {
+            DecodedInstruction instruction = program.get(i);
+            String name = instruction.handler().getName();
+            if (TERMINATORS.contains(name)) {
+                block.add(instruction);
+                break;
+            }
+            if (!STRAIGHT_LINE.contains(name) || !hasPlainAddress(name, instruction.operands())) {
+                break;
+            }
+            block.add(instruction);
+        }
+        return block;
+    }
+
+    /**
+     * Loads and stores are only compiled for {@code offset($base)} operands with a
+     * numeric displacement; symbolic addresses stay on the threaded tier.
+     */
+    private static boolean hasPlainAddress(String name, List<Operand> operands) {
+        if (!MEMORY_ACCESS.contains(name)) {
+            return true;
+        }
+        Operand address = operands.get(1);
+        return address.is(Operand.Kind.MEMORY) && address.symbol() == null;
+    }
+
+    private static void collectRegisters(DecodedInstruction instruction, Map<Integer, Integer> locals, BitSet written) {
+        String name = instruction.handler().getName();
+        List<Operand> operands = instruction.operands();
+        for (Operand operand : operands) {
+            if (operand.is(Operand.Kind.INT_REGISTER) || operand.is(Operand.Kind.MEMORY)) {
+                locals.computeIfAbsent(operand.index(), r -> FIRST_REGISTER_LOCAL + locals.size());
+            }
+        }
+        if (name.equals("mfhi")) {
+            locals.computeIfAbsent(OperandConstants.HI_REGISTER.index(), r -> FIRST_REGISTER_LOCAL + locals.size());
+        } else if (name.equals("mflo")) {
+            locals.computeIfAbsent(OperandConstants.LO_REGISTER.index(), r -> FIRST_REGISTER_LOCAL + locals.size());
+        }
+
+        boolean isStore = name.equals("sw") || name.equals("sb") || name.equals("sh");
+        if (STRAIGHT_LINE.contains(name) && !name.equals("nop") && !isStore &&
+            operands.getFirst().index() != Registers.ZERO) {
+            written.set(operands.getFirst().index());
+        }
+    }
+
+    /**
+     * Emits the body of {@code run} for one block.
+     */
+    private static final class Emitter {
+        private final CodeBuilder code;
+        private final Map<Integer, Integer> locals;
+        private final BitSet written;
+        private final int start;
+        private final int length;
+        private final int loopTop;
+        private final List<int[]> faultHandlers = new ArrayList<>(); // {handler label, instruction index}
+
+        Emitter(CodeBuilder code, Map<Integer, Integer> locals, BitSet written, int start, int length) {
+            this.code = code;
+            this.locals = locals;
+            this.written = written;
+            this.start = start;
+            this.length = length;
+            this.loopTop = code.newLabel();
+        }
+
+        void emitBlock(List<DecodedInstruction> block) {
+            for (Map.Entry<Integer, Integer> entry : locals.entrySet()) {
+                code.aload(EVALUATOR_LOCAL);
+                code.pushInt(entry.getKey());
+                code.invokeVirtual(EVALUATOR, "getRegister", "(I)I");
+                code.istore(entry.getValue());
+            }
+            code.bind(loopTop);
+
+            emitBody(block);
+            emitFaultHandlers();
+        }
+
+        private void emitBody(List<DecodedInstruction> block) {
+            int pc = start;
+            for (DecodedInstruction instruction : block) {
+                String name = instruction.handler().getName();
+                if (TERMINATORS.contains(name)) {
+                    emitTerminator(name, instruction.operands(), pc + 1);
+                    return;
+                }
+                if (MEMORY_ACCESS.contains(name)) {
+                    emitGuarded(name, instruction.operands(), pc);
+                } else {
+                    emitStraightLine(name, instruction.operands());
+                }
+                pc++;
+            }
+            exit(pc);
+        }
+
+        /**
+         * Emits a load or store inside a handler range for {@link MemoryAccessException}.
+         */
+        private void emitGuarded(String name, List<Operand> operands, int pc) {
+            int from = code.newLabel();
+            int to = code.newLabel();
+            int handler = code.newLabel();
+            code.bind(from);
+            emitStraightLine(name, operands);
+            code.bind(to);
+            code.handle(from, to, handler, MEMORY_FAULT);
+            faultHandlers.add(new int[]{handler, pc});
+        }
+
+        /**
+         * Emits the handlers of the guarded accesses: with the exception on the stack, write
+         * the registers back, retire the instructions of this pass that ran before the faulting
+         * one (earlier passes were counted on the back-edge) and rethrow at its index.
+         */
+        private void emitFaultHandlers() {
+            for (int[] fault : faultHandlers) {
+                int pc = fault[1];
+                code.bind(fault[0]);
+                writeBack();
+                retire(pc - start);
+                code.pushInt(pc);
+                code.invokeVirtual(MEMORY_FAULT, "atInstruction", "(I)L" + MEMORY_FAULT + ";");
+                code.athrow();
+            }
+        }
+
+        private void emitStraightLine(String name, List<Operand> operands) {
+            switch (name) {
+                case "addu" -> binary(operands, CodeBuilder.IADD);
+                case "subu" -> binary(operands, CodeBuilder.ISUB);
+                case "mul"  -> binary(operands, CodeBuilder.IMUL);
+                case "and"  -> binary(operands, CodeBuilder.IAND);
+                case "or"   -> binary(operands, CodeBuilder.IOR);
+                case "xor"  -> binary(operands, CodeBuilder.IXOR);
+                case "sllv" -> binary(operands, CodeBuilder.ISHL);   // the JVM masks shift counts to 5 bits,
+                case "srlv" -> binary(operands, CodeBuilder.IUSHR);  // exactly like MIPS does
+                case "srav" -> binary(operands, CodeBuilder.ISHR);
+                case "nor" -> {
+                    binary(operands, CodeBuilder.IOR, false);
+                    code.pushInt(-1);
+                    code.op(CodeBuilder.IXOR);
+                    store(operands.getFirst());
+                }
+                case "addiu" -> immediate(operands, CodeBuilder.IADD);
+                case "andi"  -> immediate(operands, CodeBuilder.IAND);
+                case "ori"   -> immediate(operands, CodeBuilder.IOR);
+                case "xori"  -> immediate(operands, CodeBuilder.IXOR);
+                case "sll"   -> immediate(operands, CodeBuilder.ISHL);
+                case "srl"   -> immediate(operands, CodeBuilder.IUSHR);
+                case "sra"   -> immediate(operands, CodeBuilder.ISHR);
+                case "slt" -> {
+                    load(operands.get(1));
+                    load(operands.get(2));
+                    compareToFlag(CodeBuilder.IF_ICMPLT, operands.getFirst());
+                }
+                case "sltu" -> {
+                    load(operands.get(1));
+                    load(operands.get(2));
+                    code.invokeStatic("java/lang/Integer", "compareUnsigned", "(II)I");
+                    compareToFlag(CodeBuilder.IFLT, operands.getFirst());
+                }
+                case "slti" -> {
+                    load(operands.get(1));
+                    code.pushInt(operands.get(2).immediate());
+                    compareToFlag(CodeBuilder.IF_ICMPLT, operands.getFirst());
+                }
+                case "sltiu" -> {
+                    load(operands.get(1));
+                    code.pushInt(operands.get(2).immediate());
+                    code.invokeStatic("java/lang/Integer", "compareUnsigned", "(II)I");
+                    compareToFlag(CodeBuilder.IFLT, operands.getFirst());
+                }
+                case "add"  -> checked(operands, "add", operands.get(2));
+                case "sub"  -> checked(operands, "sub", operands.get(2));
+                case "addi" -> checked(operands, "addi", operands.get(2));
+                case "li" -> {
+                    code.pushInt(operands.get(1).immediate());
+                    store(operands.getFirst());
+                }
+                case "lui" -> {
+                    code.pushInt(operands.get(1).immediate() << 16);
+                    store(operands.getFirst());
+                }
+                case "move" -> {
+                    load(operands.get(1));
+                    store(operands.getFirst());
+                }
+                case "mfhi" -> {
+                    code.iload(locals.get(OperandConstants.HI_REGISTER.index()));
+                    store(operands.getFirst());
+                }
+                case "mflo" -> {
+                    code.iload(locals.get(OperandConstants.LO_REGISTER.index()));
+                    store(operands.getFirst());
+                }
+                case "nop" -> {
+                    // nothing to emit
+                }
+                case "lw"  -> load(operands, "loadWordFromMemory", "(I)I", 0);
+                case "lb"  -> load(operands, "loadByteFromMemory", "(I)B", 0);
+                case "lbu" -> load(operands, "loadByteFromMemory", "(I)B", 0xFF);
+                case "lh"  -> load(operands, "loadHalfWordFromMemory", "(I)S", 0);
+                case "lhu" -> load(operands, "loadHalfWordFromMemory", "(I)S", 0xFFFF);
+                case "sw"  -> store(operands, "storeWordToMemory", "(II)V", 0);
+                case "sb"  -> store(operands, "storeByteToMemory", "(IB)V", CodeBuilder.I2B);
+                case "sh"  -> store(operands, "storeHalfWordToMemory", "(IS)V", CodeBuilder.I2S);
+                default -> throw new IllegalStateException("Not a straight-line instruction: " + name);
+            }
+        }
+
+        private void emitTerminator(String name, List<Operand> operands, int next) {
+            if (name.equals("j")) {
+                jumpTo(operands.getFirst().target());
+                return;
+            }
+
+            int taken = code.newLabel();
+            switch (name) {
+                case "beq" -> {
+                    load(operands.getFirst());
+                    load(operands.get(1));
+                    code.jump(CodeBuilder.IF_ICMPEQ, taken);
+                }
+                case "bne" -> {
+                    load(operands.getFirst());
+                    load(operands.get(1));
+                    code.jump(CodeBuilder.IF_ICMPNE, taken);
+                }
+                case "bgez" -> {
+                    load(operands.getFirst());
+                    code.jump(CodeBuilder.IFGE, taken);
+                }
+                case "bgtz" -> {
+                    load(operands.getFirst());
+                    code.jump(CodeBuilder.IFGT, taken);
+                }
+                case "blez" -> {
+                    load(operands.getFirst());
+                    code.jump(CodeBuilder.IFLE, taken);
+                }
+                case "bltz" -> {
+                    load(operands.getFirst());
+                    code.jump(CodeBuilder.IFLT, taken);
+                }
+                default -> throw new IllegalStateException("Not a block terminator: " + name);
+            }
+            exit(next);
+            code.bind(taken);
+            jumpTo(operands.getLast().target());
+        }
+
+        private void jumpTo(int target) {
+            if (target == start) {
+                code.aload(EVALUATOR_LOCAL);
+                code.pushInt(length);
+                code.invokeVirtual(EVALUATOR, "continueLoop", "(I)Z");
+                code.jump(CodeBuilder.IFNE, loopTop);
+                exit(start);
+            } else {
+                exit(target);
+            }
+        }
+
+        /**
+         * Writes modified registers back to the evaluator, retires the last pass through the
+         * block and returns {@code next}. The execution loop counts one of its instructions.
+         */
+        private void exit(int next) {
+            writeBack();
+            retire(length - 1);
+            code.pushInt(next);
+            code.ireturn();
+        }
+
+        private void writeBack() {
+            for (int register = written.nextSetBit(0); register >= 0; register = written.nextSetBit(register + 1)) {
+                code.aload(EVALUATOR_LOCAL);
+                code.pushInt(register);
+                code.iload(locals.get(register));
+                code.invokeVirtual(EVALUATOR, "setRegister", "(II)V");
+            }
+        }
+
+        private void retire(int instructions) {
+            if (instructions > 0) {
+                code.aload(EVALUATOR_LOCAL);
+                code.pushInt(instructions);
+                code.invokeVirtual(EVALUATOR, "retire", "(I)V");
+            }
+        }
+
+        private void binary(List<Operand> operands, int opcode) {
+            binary(operands, opcode, true);
+        }
+
+        private void binary(List<Operand> operands, int opcode, boolean store) {
+            load(operands.get(1));
+            load(operands.get(2));
+            code.op(opcode);
+            if (store) {
+                store(operands.getFirst());
+            }
+        }
+
+        private void immediate(List<Operand> operands, int opcode) {
+            load(operands.get(1));
+            code.pushInt(operands.get(2).immediate());
+            code.op(opcode);
+            store(operands.getFirst());
+        }
+
+        private void checked(List<Operand> operands, String helper, Operand second) {
+            code.aload(EVALUATOR_LOCAL);
+            load(operands.get(1));
+            if (second.is(Operand.Kind.IMMEDIATE)) {
+                code.pushInt(second.immediate());
+            } else {
+                load(second);
+            }
+            load(operands.getFirst());
+            code.invokeStatic(RUNTIME, helper, "(L" + EVALUATOR + ";III)I");
+            store(operands.getFirst());
+        }
+
+        /**
+         * Turns the comparison on the stack into 0/1 in {@code destination}.
+         */
+        private void compareToFlag(int opcode, Operand destination) {
+            int isTrue = code.newLabel();
+            int done = code.newLabel();
+            code.jump(opcode, isTrue);
+            code.pushInt(0);
+            code.jump(CodeBuilder.GOTO, done);
+            code.bind(isTrue);
+            code.pushInt(1);
+            code.bind(done);
+            store(destination);
+        }
+
+        private void load(List<Operand> operands, String method, String descriptor, int mask) {
+            code.aload(EVALUATOR_LOCAL);
+            address(operands.get(1));
+            code.invokeVirtual(EVALUATOR, method, descriptor);
+            if (mask != 0) {
+                code.pushInt(mask);
+                code.op(CodeBuilder.IAND);
+            }
+            store(operands.getFirst());
+        }
+
+        private void store(List<Operand> operands, String method, String descriptor, int narrowing) {
+            code.aload(EVALUATOR_LOCAL);
+            address(operands.get(1));
+            load(operands.getFirst());
+            if (narrowing != 0) {
+                code.op(narrowing);
+            }
+            code.invokeVirtual(EVALUATOR, method, descriptor);
+        }
+
+        private void address(Operand memory) {
+            code.iload(locals.get(memory.index()));
+            if (memory.immediate() != 0) {
+                code.pushInt(memory.immediate());
+                code.op(CodeBuilder.IADD);
+            }
+        }
+
+        private void load(Operand register) {
+            code.iload(locals.get(register.index()));
+        }
+
+        private void store(Operand register) {
+            if (register.index() == Registers.ZERO) {
+                code.op(CodeBuilder.POP); // writes to $zero are discarded
+                return;
+            }
+            code.istore(locals.get(register.index()));
+        }
+    }
+}
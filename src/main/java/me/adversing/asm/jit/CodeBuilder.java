@@ -0,0 +1,197 @@
+package me.adversing.asm.jit;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bytecode buffer for a single method, with forward-referenced labels.
+ * <p>
+ * Only the opcodes the {@link BlockCompiler} emits are exposed. Branch offsets are
+ * 16-bit, which is plenty for the bounded blocks the compiler produces.
+ */
+final class CodeBuilder {
+    static final int POP   = 0x57;
+    static final int IADD  = 0x60;
+    static final int ISUB  = 0x64;
+    static final int IMUL  = 0x68;
+    static final int ISHL  = 0x78;
+    static final int ISHR  = 0x7a;
+    static final int IUSHR = 0x7c;
+    static final int IAND  = 0x7e;
+    static final int IOR   = 0x80;
+    static final int IXOR  = 0x82;
+    static final int I2B   = 0x91;
+    static final int I2S   = 0x93;
+
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IFLT = 0x9b;
+    static final int IFGE = 0x9c;
+    static final int IFGT = 0x9d;
+    static final int IFLE = 0x9e;
+    static final int IF_ICMPEQ = 0x9f;
+    static final int IF_ICMPNE = 0xa0;
+    static final int IF_ICMPLT = 0xa1;
+    static final int GOTO = 0xa7;
+
+    private static final int ICONST_0      = 0x03;
+    private static final int BIPUSH        = 0x10;
+    private static final int SIPUSH        = 0x11;
+    private static final int LDC_W         = 0x13;
+    private static final int ILOAD         = 0x15;
+    private static final int ALOAD         = 0x19;
+    private static final int ISTORE        = 0x36;
+    private static final int IRETURN       = 0xac;
+    private static final int RETURN        = 0xb1;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC  = 0xb8;
+    private static final int ATHROW        = 0xbf;
+
+    private static final int MAX_STACK = 8;
+
+    private final ClassFileWriter classFile;
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+    private final List<int[]> fixups = new ArrayList<>(); // {instruction offset, label}
+    private final List<Integer> labels = new ArrayList<>();
+    private final List<int[]> handlers = new ArrayList<>(); // {start label, end label, handler label, class index}
+    private final int maxLocals;
+
+    CodeBuilder(ClassFileWriter classFile, int maxLocals) {
+        this.classFile = classFile;
+        this.maxLocals = maxLocals;
+    }
+
+    int maxStack() {
+        return MAX_STACK;
+    }
+
+    int maxLocals() {
+        return maxLocals;
+    }
+
+    int size() {
+        return code.size();
+    }
+
+    // ------------------------------------------------
+    // Labels
+    // ------------------------------------------------
+    int newLabel() {
+        labels.add(-1);
+        return labels.size() - 1;
+    }
+
+    void bind(int label) {
+        labels.set(label, code.size());
+    }
+
+    /**
+     * Routes {@code type} exceptions thrown between {@code start} and {@code end} to {@code handler},
+     * which starts with the exception as the only stack entry.
+     */
+    void handle(int start, int end, int handler, String type) {
+        handlers.add(new int[]{start, end, handler, classFile.classRef(type)});
+    }
+
+    void jump(int opcode, int label) {
+        fixups.add(new int[]{code.size(), label});
+        code.write(opcode);
+        code.write(0);
+        code.write(0);
+    }
+
+    // ------------------------------------------------
+    // Instructions
+    // ------------------------------------------------
+    void op(int opcode) {
+        code.write(opcode);
+    }
+
+    void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            code.write(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.write(BIPUSH);
+            code.write(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.write(SIPUSH);
+            writeShort(value);
+        } else {
+            code.write(LDC_W);
+            writeShort(classFile.integer(value));
+        }
+    }
+
+    void iload(int local) {
+        code.write(ILOAD);
+        code.write(local);
+    }
+
+    void istore(int local) {
+        code.write(ISTORE);
+        code.write(local);
+    }
+
+    void aload(int local) {
+        code.write(ALOAD);
+        code.write(local);
+    }
+
+    void ireturn() {
+        code.write(IRETURN);
+    }
+
+    void vreturn() {
+        code.write(RETURN);
+    }
+
+    void athrow() {
+        code.write(ATHROW);
+    }
+
+    void invokeVirtual(String owner, String name, String descriptor) {
+        code.write(INVOKEVIRTUAL);
+        writeShort(classFile.methodRef(owner, name, descriptor));
+    }
+
+    void invokeSpecial(String owner, String name, String descriptor) {
+        code.write(INVOKESPECIAL);
+        writeShort(classFile.methodRef(owner, name, descriptor));
+    }
+
+    void invokeStatic(String owner, String name, String descriptor) {
+        code.write(INVOKESTATIC);
+        writeShort(classFile.methodRef(owner, name, descriptor));
+    }
+
+    byte[] toByteArray() {
+        byte[] bytes = code.toByteArray();
+        for (int[] fixup : fixups) {
+            int offset = labels.get(fixup[1]) - fixup[0];
+            if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                throw new IllegalStateException("Branch offset out of range: " + offset);
+            }
+            bytes[fixup[0] + 1] = (byte) (offset >> 8);
+            bytes[fixup[0] + 2] = (byte) offset;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the exception table entries as {start pc, end pc, handler pc, catch type}
+     */
+    List<int[]> exceptionTable() {
+        List<int[]> table = new ArrayList<>(handlers.size());
+        for (int[] handler : handlers) {
+            table.add(new int[]{labels.get(handler[0]), labels.get(handler[1]), labels.get(handler[2]), handler[3]});
+        }
+        return table;
+    }
+
+    private void writeShort(int value) {
+        code.write(value >> 8);
+        code.write(value);
+    }
+}
@@ -0,0 +1,49 @@
+package me.adversing.asm.jit;
+
+import lombok.experimental.UtilityClass;
+import me.adversing.asm.engine.ASMEvaluator;
+
+/**
+ * Out-of-line helpers called from compiled blocks for instructions whose error
+ * behaviour is too bulky to emit inline. Each mirrors the matching handler.
+ */
+@UtilityClass
+public final class JitRuntime {
+
+    /**
+     * {@code add}: returns the sum, or reports the overflow and returns {@code previous}
+     * so the destination register keeps its old value.
+     */
+    public static int add(ASMEvaluator evaluator, int value1, int value2, int previous) {
+        if ((value1 > 0 && value2 > 0 && value1 > Integer.MAX_VALUE - value2) ||
+            (value1 < 0 && value2 < 0 && value1 < Integer.MIN_VALUE - value2)) {
+            evaluator.getDiagnosticService().addError("Add instruction arithmetic overflow detected.");
+            return previous;
+        }
+        return value1 + value2;
+    }
+
+    /**
+     * {@code addi}: see {@link #add}.
+     */
+    public static int addi(ASMEvaluator evaluator, int value, int immediate, int previous) {
+        if ((value > 0 && immediate > 0 && value > Integer.MAX_VALUE - immediate) ||
+            (value < 0 && immediate < 0 && value < Integer.MIN_VALUE - immediate)) {
+            evaluator.getDiagnosticService().addError("Addi instruction arithmetic overflow detected.");
+            return previous;
+        }
+        return value + immediate;
+    }
+
+    /**
+     * {@code sub}: see {@link #add}.
+     */
+    public static int sub(ASMEvaluator evaluator, int value1, int value2, int previous) {
+        if ((value2 > 0 && value1 < Integer.MIN_VALUE + value2) ||
+                (value2 < 0 && value1 > Integer.MAX_VALUE + value2)) {
+            evaluator.getDiagnosticService().addError("Arithmetic overflow in subtraction.");
+            return previous;
+        }
+        return value1 - value2;
+    }
+}
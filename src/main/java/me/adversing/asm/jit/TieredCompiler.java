@@ -0,0 +1,58 @@
+package me.adversing.asm.jit;
+
+import lombok.experimental.UtilityClass;
+import me.adversing.asm.engine.ASMEvaluator;
+import me.adversing.asm.program.CompiledInstruction;
+import me.adversing.asm.program.CompiledProgram;
+import me.adversing.asm.program.DecodedProgram;
+
+import java.util.BitSet;
+
+/**
+ * Builds the code for {@link me.adversing.asm.engine.ExecutionMode#TIERED}.
+ * <p>
+ * Execution starts on the threaded tier. Every block leader is wrapped in a node that
+ * counts entries; once a block has been entered {@link #HOT_THRESHOLD} times it is
+ * handed to the {@link BlockCompiler} and the compiled block replaces the counter.
+ */
+@UtilityClass
+public final class TieredCompiler {
+    public static final int HOT_THRESHOLD = 1_000;
+
+    public static CompiledProgram compile(DecodedProgram program) {
+        CompiledProgram code = CompiledProgram.compile(program);
+        BlockCompiler compiler = new BlockCompiler(program);
+
+        BitSet leaders = compiler.leaders();
+        for (int leader = leaders.nextSetBit(0); leader >= 0; leader = leaders.nextSetBit(leader + 1)) {
+            if (compiler.isCompilable(leader)) {
+                code.install(leader, profile(code, compiler, leader));
+            }
+        }
+        return code;
+    }
+
+    private static CompiledInstruction profile(CompiledProgram code, BlockCompiler compiler, int leader) {
+        CompiledInstruction threaded = code.get(leader);
+        int[] entries = new int[1];
+        return evaluator -> {
+            if (++entries[0] == HOT_THRESHOLD) {
+                promote(code, compiler, leader, threaded, evaluator);
+            }
+            return threaded.run(evaluator);
+        };
+    }
+
+    private static void promote(CompiledProgram code, BlockCompiler compiler, int leader,
+                                CompiledInstruction threaded, ASMEvaluator evaluator) {
+        try {
+            code.install(leader, compiler.compile(leader));
+            if (evaluator.isDebug()) evaluator.getDebugLogger().debug("Compiled hot block at {}", leader);
+        } catch (RuntimeException | LinkageError e) {
+            // a block the compiler rejects or the JVM fails to define, link or verify stays on
+            // the threaded tier for good: the profiling node is replaced, so it is never retried
+            code.install(leader, threaded);
+            if (evaluator.isDebug()) evaluator.getDebugLogger().debug("Could not compile block at {}: {}", leader, e);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package me.adversing.asm.lexer;
+
+/**
+ * Single-pass tokenizer for MIPS assembly source.
+ * <p>
+ * The lexer is a cursor rather than a token stream: {@link #next()} advances to the next
+ * token and the accessors describe the current one by its bounds in the source, so lexing
+ * allocates nothing. {@link #text()} materializes a token only when the parser needs it.
+ * <p>
+ * Whitespace other than line breaks is skipped, and {@code #} comments are skipped up to
+ * the end of their line. Every line break is reported as a {@link TokenType#NEWLINE}, so the
+ * parser can keep its statement-per-line structure.
+ */
+public final class Lexer {
+    private final CharSequence source;
+    private final int limit; // offset just past the last character to lex
+
+    private int position;
+    private int line;
+    private int lineStart;
+
+    private TokenType type;
+    private int start;
+    private int end;
+    private int tokenLine;
+    private int tokenColumn;
+
+    /**
+     * @param source the program text, typically a {@link java.nio.CharBuffer} over the decoded file
+     */
+    public Lexer(CharSequence source) {
+        this(source, 0, source.length(), 1);
+    }
+
+    /**
+     * Lexes only {@code source[from, to)}, which must start at the beginning of a line.
+     * Offsets stay relative to the whole source.
+     *
+     * @param firstLine the line number of {@code from}
+     */
+    public Lexer(CharSequence source, int from, int to, int firstLine) {
+        this.source = source;
+        this.limit = to;
+        this.position = from;
+        this.lineStart = from;
+        this.line = firstLine;
+    }
+
+    public TokenType next() {
+        skipBlanks();
+        start = position;
+        tokenLine = line;
+        tokenColumn = position - lineStart + 1;
+
+        if (position >= limit) {
+            end = position;
+            return type = TokenType.EOF;
+        }
+
+        char c = source.charAt(position++);
+        type = switch (c) {
+            case '\n' -> {
+                line++;
+                lineStart = position;
+                yield TokenType.NEWLINE;
+            }
+            case ',' -> TokenType.COMMA;
+            case ':' -> TokenType.COLON;
+            case '(' -> TokenType.LEFT_PAREN;
+            case ')' -> TokenType.RIGHT_PAREN;
+            case '"' -> string();
+            case '$' -> {
+                skipWord();
+                yield position > start + 1 ? TokenType.REGISTER : TokenType.ERROR;
+            }
+            case '.' -> {
+                skipWord();
+                yield position > start + 1 ? TokenType.DIRECTIVE : TokenType.ERROR;
+            }
+            case '-', '+' -> {
+                if (position < limit && isDigit(source.charAt(position))) {
+                    skipWord();
+                    yield TokenType.NUMBER;
+                }
+                yield TokenType.ERROR;
+            }
+            default -> {
+                if (isDigit(c)) {
+                    skipWord();
+                    yield TokenType.NUMBER;
+                } else if (isWordStart(c)) {
+                    skipWord();
+                    yield TokenType.IDENTIFIER;
+                }
+                yield TokenType.ERROR;
+            }
+        };
+        end = position;
+        return type;
+    }
+
+    /**
+     * Skips the rest of the current line without tokenizing it; the next token is its line break.
+     */
+    public void skipLine() {
+        while (position < limit && source.charAt(position) != '\n') {
+            position++;
+        }
+    }
+
+    private void skipBlanks() {
+        while (position < limit) {
+            char c = source.charAt(position);
+            if (c == '#') {
+                while (position < limit && source.charAt(position) != '\n') {
+                    position++;
+                }
+            } else if (c != '\n' && Character.isWhitespace(c)) {
+                position++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipWord() {
+        while (position < limit && isWordPart(source.charAt(position))) {
+            position++;
+        }
+    }
+
+    private TokenType string() {
+        while (position < limit) {
+            char c = source.charAt(position++);
+            if (c == '"') {
+                return TokenType.STRING;
+            }
+            if (c == '\\' && position < limit && source.charAt(position) != '\n') {
+                position++;
+            } else if (c == '\n') {
+                position--; // leave the line break for the next token
+                break;
+            }
+        }
+        return TokenType.ERROR;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isWordPart(char c) {
+        return isWordStart(c) || isDigit(c) || c == '.';
+    }
+
+    // ------------------------------------------------
+    // Current token
+    // ------------------------------------------------
+    public TokenType type() {
+        return type;
+    }
+
+    /**
+     * @return the offset of the current token's first character
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * @return the offset just past the current token's last character
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * @return the 1-based line of the current token
+     */
+    public int line() {
+        return tokenLine;
+    }
+
+    /**
+     * @return the 1-based column of the current token
+     */
+    public int column() {
+        return tokenColumn;
+    }
+
+    public String text() {
+        return text(start, end);
+    }
+
+    /**
+     * @return the source between two offsets, e.g. the bounds of several tokens
+     */
+    public String text(int from, int to) {
+        return source.subSequence(from, to).toString();
+    }
+
+    public boolean is(TokenType type) {
+        return this.type == type;
+    }
+
+    /**
+     * @return whether the current token's text is exactly {@code text}, compared without allocating
+     */
+    public boolean textEquals(String text) {
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (source.charAt(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the contents of the current {@link TokenType#STRING} without its quotes, with the
+     *         escape sequences {@code \n \t \r \b \f \\ \" \' \0} decoded; any other
+     *         backslash is kept as it is
+     */
+    public String stringValue() {
+        StringBuilder value = new StringBuilder(end - start - 2);
+        for (int i = start + 1; i < end - 1; i++) {
+            char c = source.charAt(i);
+            if (c != '\\' || i + 1 == end - 1) {
+                value.append(c);
+                continue;
+            }
+            char escaped = source.charAt(++i);
+            switch (escaped) {
+                case 'n' -> value.append('\n');
+                case 't' -> value.append('\t');
+                case 'r' -> value.append('\r');
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case '0' -> value.append('\0');
+                case '\\', '"', '\'' -> value.append(escaped);
+                default -> value.append('\\').append(escaped);
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * Reads the current {@link TokenType#NUMBER} as a decimal or {@code 0x}-prefixed
+     * hexadecimal integer that fits in 32 bits (signed or unsigned).
+     *
+     * @return the value, or {@link Long#MIN_VALUE} if the token is not such a literal
+     */
+    public long integerValue() {
+        int i = start;
+        boolean negative = source.charAt(i) == '-';
+        if (negative || source.charAt(i) == '+') {
+            i++;
+        }
+
+        int radix = 10;
+        if (end - i > 2 && source.charAt(i) == '0' && (source.charAt(i + 1) | 0x20) == 'x') {
+            radix = 16;
+            i += 2;
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = Character.digit(source.charAt(i), radix);
+            if (digit < 0) {
+                return Long.MIN_VALUE;
+            }
+            value = value * radix + digit;
+            if (value > 0xFFFFFFFFL) {
+                return Long.MIN_VALUE;
+            }
+        }
+        value = negative ? -value : value;
+        return value < Integer.MIN_VALUE ? Long.MIN_VALUE : value;
+    }
+}
@@ -0,0 +1,23 @@
+package me.adversing.asm.lexer;
+
+public enum TokenType {
+    /** Mnemonic, label or variable name, e.g. {@code add.s} or {@code loop_1}. */
+    IDENTIFIER,
+    /** Assembler directive, e.g. {@code .data} or {@code .asciiz}. */
+    DIRECTIVE,
+    /** {@code $} followed by a register name or number, e.g. {@code $t0} or {@code $f12}. */
+    REGISTER,
+    /** Optionally signed numeric literal, e.g. {@code -4}, {@code 0x1F} or {@code 3.14}. */
+    NUMBER,
+    /** Double-quoted string literal, quotes and escapes included. */
+    STRING,
+    COMMA,
+    COLON,
+    LEFT_PAREN,
+    RIGHT_PAREN,
+    /** End of a line; comments are skipped up to it. */
+    NEWLINE,
+    EOF,
+    /** A character that starts no token, or an unterminated string. */
+    ERROR
+}
@@ -0,0 +1,18 @@
+package me.adversing.asm.program;
+
+import me.adversing.asm.engine.ASMEvaluator;
+
+/**
+ * A single instruction specialised for threaded execution.
+ * <p>
+ * Nodes capture their operands as primitive values when they are compiled, so running
+ * one is a single monomorphic call that returns where execution continues.
+ */
+@FunctionalInterface
+public interface CompiledInstruction {
+
+    /**
+     * @return the index of the next instruction to execute
+     */
+    int run(ASMEvaluator evaluator);
+}
@@ -0,0 +1,45 @@
+package me.adversing.asm.program;
+
+/**
+ * A {@link DecodedProgram} compiled into one {@link CompiledInstruction} per slot,
+ * as executed by {@link me.adversing.asm.engine.ExecutionMode#THREADED}. Slots that
+ * start a known idiom get a fused node from the {@link PeepholeFuser}.
+ */
+public final class CompiledProgram {
+    private final CompiledInstruction[] instructions;
+
+    private CompiledProgram(CompiledInstruction[] instructions) {
+        this.instructions = instructions;
+    }
+
+    public static CompiledProgram compile(DecodedProgram program) {
+        CompiledInstruction[] compiled = new CompiledInstruction[program.size()];
+        for (int pc = 0; pc < compiled.length; pc++) {
+            CompiledInstruction fused = PeepholeFuser.fuse(program, pc);
+            if (fused != null) {
+                compiled[pc] = fused;
+                continue;
+            }
+
+            DecodedInstruction instruction = program.get(pc);
+            compiled[pc] = instruction.handler().compile(instruction.operands(), pc);
+        }
+        return new CompiledProgram(compiled);
+    }
+
+    public CompiledInstruction get(int index) {
+        return instructions[index];
+    }
+
+    /**
+     * Replaces the node at {@code index}, e.g. when a hot block is promoted to a
+     * higher tier. The dispatch loop picks the new node up on its next visit.
+     */
+    public void install(int index, CompiledInstruction instruction) {
+        instructions[index] = instruction;
+    }
+
+    public int size() {
+        return instructions.length;
+    }
+}
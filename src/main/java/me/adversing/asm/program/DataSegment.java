@@ -0,0 +1,168 @@
+package me.adversing.asm.program;
+
+import me.adversing.asm.diagnostic.exception.InvalidProgramStructureException;
+import me.adversing.asm.engine.Memory;
+import me.adversing.asm.variable.Variable;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The initialized static data of a program, laid out at assembly time.
+ * <p>
+ * The {@link #chunks()} hold the exact big-endian content of the initialized parts of memory
+ * from {@link Memory#DATA_BASE} on, with string escapes already decoded, so installing them
+ * is one copy per chunk rather than one store per declared value. Zero runs of a page or more,
+ * i.e. large {@code .space} reservations, lie between chunks and are never materialized: not
+ * when laying out, not in a cached image and not when installing, since memory reads as zero
+ * until written.
+ *
+ * @param chunks    the initialized byte ranges, in ascending address order
+ * @param addresses variable name to its absolute address
+ */
+public record DataSegment(List<Chunk> chunks, Map<String, Integer> addresses) {
+    private static final long USER_SPACE_END = 0x80000000L;
+    // Shorter zero runs stay inside a chunk: leaving them out could not save a page
+    private static final int MIN_GAP = Memory.PAGE_SIZE;
+
+    /**
+     * Initialized bytes to be copied to {@code address}.
+     */
+    public record Chunk(int address, MemorySegment bytes) {
+    }
+
+    public DataSegment {
+        chunks = List.copyOf(chunks);
+        addresses = Collections.unmodifiableMap(addresses);
+    }
+
+    /**
+     * Lays the variables out in declaration order, each aligned to its {@link Variable#alignment()}.
+     * Only initialized values are materialized; {@code .space} of a page or more splits the
+     * chunks, and trailing {@code .space} is left out altogether.
+     *
+     * @throws InvalidProgramStructureException if a value does not fit its directive
+     */
+    public static DataSegment layout(Collection<Variable> variables) throws InvalidProgramStructureException {
+        Map<String, Integer> addresses = new LinkedHashMap<>();
+        List<long[]> ranges = new ArrayList<>(); // {start, end} offsets from DATA_BASE
+        long size = 0;
+        for (Variable variable : variables) {
+            size = align(size, variable.alignment());
+            long start = size;
+            addresses.put(variable.name(), (int) (Memory.DATA_BASE + start));
+            size += sizeOf(variable);
+            if (Memory.DATA_BASE + size > USER_SPACE_END) {
+                throw new InvalidProgramStructureException("Data segment does not fit in user space at variable: " + variable.name());
+            }
+            if (!variable.is(Variable.Type.SPACE)) {
+                long[] last = ranges.isEmpty() ? null : ranges.getLast();
+                if (last != null && start - last[1] < MIN_GAP) {
+                    last[1] = size;
+                } else {
+                    ranges.add(new long[]{start, size});
+                }
+            }
+        }
+
+        ByteBuffer[] buffers = new ByteBuffer[ranges.size()]; // big-endian, zero-filled
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.allocate((int) (ranges.get(i)[1] - ranges.get(i)[0]));
+        }
+        int range = 0;
+        for (Variable variable : variables) {
+            if (variable.is(Variable.Type.SPACE)) {
+                continue;
+            }
+            long start = addresses.get(variable.name()) - Memory.DATA_BASE;
+            while (start + sizeOf(variable) > ranges.get(range)[1]) {
+                range++;
+            }
+            buffers[range].position((int) (start - ranges.get(range)[0]));
+            put(buffers[range], variable);
+        }
+
+        List<Chunk> chunks = new ArrayList<>(buffers.length);
+        for (int i = 0; i < buffers.length; i++) {
+            chunks.add(new Chunk((int) (Memory.DATA_BASE + ranges.get(i)[0]), MemorySegment.ofArray(buffers[i].array())));
+        }
+        return new DataSegment(chunks, addresses);
+    }
+
+    private static long sizeOf(Variable variable) throws InvalidProgramStructureException {
+        int count = variable.values().size();
+        return switch (variable.type()) {
+            case WORD, FLOAT -> count * Integer.BYTES;
+            case BYTE -> count;
+            case HALF -> count * Short.BYTES;
+            case DOUBLE -> count * Double.BYTES;
+            case ASCII -> textSize(variable, 0);
+            case ASCIIZ -> textSize(variable, 1);
+            case SPACE -> {
+                long bytes = integer(variable, variable.values().getFirst(), Integer.SIZE);
+                if (bytes < 0) {
+                    throw new InvalidProgramStructureException("Invalid value for .space: " + bytes);
+                }
+                yield bytes;
+            }
+        };
+    }
+
+    private static void put(ByteBuffer buffer, Variable variable) throws InvalidProgramStructureException {
+        for (String value : variable.values()) {
+            switch (variable.type()) {
+                case WORD -> buffer.putInt((int) integer(variable, value, Integer.SIZE));
+                case BYTE -> buffer.put((byte) integer(variable, value, Byte.SIZE));
+                case HALF -> buffer.putShort((short) integer(variable, value, Short.SIZE));
+                case FLOAT -> buffer.putFloat(parse(variable, value, () -> Float.parseFloat(value)));
+                case DOUBLE -> buffer.putDouble(parse(variable, value, () -> Double.parseDouble(value)));
+                case ASCII -> buffer.put(value.getBytes(StandardCharsets.UTF_8));
+                case ASCIIZ -> buffer.put(value.getBytes(StandardCharsets.UTF_8)).put((byte) 0);
+                case SPACE -> {
+                    // reserved space is already zero
+                }
+            }
+        }
+    }
+
+    private static long textSize(Variable variable, int terminatorSize) {
+        long size = 0;
+        for (String value : variable.values()) {
+            size += value.getBytes(StandardCharsets.UTF_8).length + terminatorSize;
+        }
+        return size;
+    }
+
+    /**
+     * @return {@code value} as an integer of {@code bits} bits, signed or unsigned
+     */
+    private static long integer(Variable variable, String value, int bits) throws InvalidProgramStructureException {
+        long integer = parse(variable, value, () -> Long.parseLong(value));
+        if (integer < -(1L << (bits - 1)) || integer >= 1L << bits) {
+            throw new InvalidProgramStructureException(
+                    "Invalid value for " + variable.type().getType() + ": " + value);
+        }
+        return integer;
+    }
+
+    private static <T> T parse(Variable variable, String value, Supplier<T> parser) throws InvalidProgramStructureException {
+        try {
+            return parser.get();
+        } catch (NumberFormatException e) {
+            throw new InvalidProgramStructureException(
+                    "Invalid value for " + variable.type().getType() + ": " + value, e);
+        }
+    }
+
+    private static long align(long offset, int alignment) {
+        return (offset + alignment - 1) & -alignment;
+    }
+}
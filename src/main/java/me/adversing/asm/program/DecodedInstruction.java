@@ -0,0 +1,22 @@
+package me.adversing.asm.program;
+
+import me.adversing.asm.Operand;
+import me.adversing.asm.instruction.Instruction;
+import me.adversing.asm.instruction.handler.InstructionHandler;
+
+import java.util.List;
+
+/**
+ * A single slot of a {@link DecodedProgram}: the handler resolved for the
+ * mnemonic and the operands it will be invoked with.
+ *
+ * @param handler  the resolved handler, or {@code null} if the mnemonic is not supported
+ * @param operands the immutable operand list passed to the handler
+ * @param source   the parsed instruction this slot was decoded from
+ */
+public record DecodedInstruction(InstructionHandler handler, List<Operand> operands, Instruction source) {
+
+    public boolean isSupported() {
+        return handler != null;
+    }
+}
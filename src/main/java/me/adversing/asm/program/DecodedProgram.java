@@ -0,0 +1,42 @@
+package me.adversing.asm.program;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable, load-time decoded form of a program.
+ * <p>
+ * Every slot already carries its {@link me.adversing.asm.instruction.handler.InstructionHandler},
+ * so executing an instruction is an array index followed by a virtual call.
+ */
+public final class DecodedProgram {
+    private final DecodedInstruction[] instructions;
+    private final Map<String, Integer> labels;
+
+    DecodedProgram(DecodedInstruction[] instructions, Map<String, Integer> labels) {
+        this.instructions = instructions;
+        this.labels = Collections.unmodifiableMap(labels);
+    }
+
+    public DecodedInstruction get(int index) {
+        return instructions[index];
+    }
+
+    /**
+     * @return the source line instruction {@code index} was assembled from
+     */
+    public int line(int index) {
+        return instructions[index].source().line();
+    }
+
+    public int size() {
+        return instructions.length;
+    }
+
+    /**
+     * @return label name to instruction index, as collected by the parser
+     */
+    public Map<String, Integer> labels() {
+        return labels;
+    }
+}
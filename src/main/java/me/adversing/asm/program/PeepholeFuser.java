@@ -0,0 +1,148 @@
+package me.adversing.asm.program;
+
+import lombok.experimental.UtilityClass;
+import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.exception.MemoryAccessException;
+import me.adversing.asm.instruction.handler.OperandConstants;
+import me.adversing.asm.jit.JitRuntime;
+
+import java.util.List;
+
+/**
+ * Recognises common two-instruction idioms and compiles each into a single
+ * {@link CompiledInstruction} (a superinstruction):
+ * <ul>
+ *     <li>{@code slt}/{@code sltu}/{@code slti} followed by {@code beq}/{@code bne} on the result</li>
+ *     <li>{@code lui} followed by {@code ori} on the same register (32-bit constants)</li>
+ *     <li>{@code addi}/{@code addiu} followed by {@code beq}/{@code bne} on the result (loop counters)</li>
+ *     <li>{@code li $v0, N} followed by {@code syscall}</li>
+ * </ul>
+ * The fused node replaces only the first slot. The second slot keeps its own node, so
+ * branches that target it still land on a regular instruction, and both instructions
+ * perform exactly the register writes they would perform separately. A fused node
+ * {@link me.adversing.asm.engine.ASMEvaluator#retire retires} its second instruction itself.
+ */
+@UtilityClass
+public final class PeepholeFuser {
+
+    /**
+     * @return a fused node for the instructions at {@code pc} and {@code pc + 1},
+     *         or {@code null} if they do not form a known idiom
+     */
+    public static CompiledInstruction fuse(DecodedProgram program, int pc) {
+        if (pc + 1 >= program.size()) {
+            return null;
+        }
+
+        DecodedInstruction first = program.get(pc);
+        DecodedInstruction second = program.get(pc + 1);
+        String firstName = first.handler().getName();
+        String secondName = second.handler().getName();
+
+        return switch (firstName) {
+            case "slt", "sltu", "slti" -> isBranchOn(secondName, second.operands(), first.operands().getFirst())
+                    ? compareAndBranch(firstName, first.operands(), secondName, second.operands(), pc)
+                    : null;
+            case "addi", "addiu" -> isBranchOn(secondName, second.operands(), first.operands().getFirst())
+                    ? addAndBranch(firstName, first.operands(), secondName, second.operands(), pc)
+                    : null;
+            case "lui" -> secondName.equals("ori") && second.operands().get(1).index() == first.operands().getFirst().index()
+                    ? loadUpperOr(first.operands(), second.operands(), pc)
+                    : null;
+            case "li" -> secondName.equals("syscall") &&
+                         first.operands().getFirst().index() == OperandConstants.V0_REGISTER.index()
+                    ? loadAndSyscall(first.operands(), second, pc)
+                    : null;
+            default -> null;
+        };
+    }
+
+    private static boolean isBranchOn(String name, List<Operand> operands, Operand register) {
+        return (name.equals("beq") || name.equals("bne")) &&
+               (operands.getFirst().index() == register.index() || operands.get(1).index() == register.index());
+    }
+
+    private static CompiledInstruction compareAndBranch(String compare, List<Operand> compareOperands,
+                                                        String branch, List<Operand> branchOperands, int pc) {
+        int rd = compareOperands.getFirst().index();
+        int rs = compareOperands.get(1).index();
+        boolean immediate = compare.equals("slti");
+        int rt = immediate ? 0 : compareOperands.get(2).index();
+        int value = immediate ? compareOperands.get(2).immediate() : 0;
+        boolean unsigned = compare.equals("sltu");
+
+        int left = branchOperands.getFirst().index();
+        int right = branchOperands.get(1).index();
+        int target = branchOperands.get(2).target();
+        boolean branchIfEqual = branch.equals("beq");
+        int next = pc + 2;
+
+        return evaluator -> {
+            int a = evaluator.getRegister(rs);
+            int b = immediate ? value : evaluator.getRegister(rt);
+            boolean less = unsigned ? Integer.compareUnsigned(a, b) < 0 : a < b;
+            evaluator.setRegister(rd, less ? 1 : 0);
+            evaluator.retire(1);
+            boolean equal = evaluator.getRegister(left) == evaluator.getRegister(right);
+            return equal == branchIfEqual ? target : next;
+        };
+    }
+
+    private static CompiledInstruction addAndBranch(String add, List<Operand> addOperands,
+                                                    String branch, List<Operand> branchOperands, int pc) {
+        int rt = addOperands.getFirst().index();
+        int rs = addOperands.get(1).index();
+        int immediate = addOperands.get(2).immediate();
+        boolean checked = add.equals("addi");
+
+        int left = branchOperands.getFirst().index();
+        int right = branchOperands.get(1).index();
+        int target = branchOperands.get(2).target();
+        boolean branchIfEqual = branch.equals("beq");
+        int next = pc + 2;
+
+        return evaluator -> {
+            int value = evaluator.getRegister(rs);
+            evaluator.setRegister(rt, checked
+                    ? JitRuntime.addi(evaluator, value, immediate, evaluator.getRegister(rt))
+                    : value + immediate);
+            evaluator.retire(1);
+            boolean equal = evaluator.getRegister(left) == evaluator.getRegister(right);
+            return equal == branchIfEqual ? target : next;
+        };
+    }
+
+    private static CompiledInstruction loadUpperOr(List<Operand> luiOperands, List<Operand> oriOperands, int pc) {
+        int upperRegister = luiOperands.getFirst().index();
+        int upper = luiOperands.get(1).immediate() << 16;
+        int rt = oriOperands.getFirst().index();
+        int constant = upper | oriOperands.get(2).immediate();
+        int next = pc + 2;
+
+        return evaluator -> {
+            evaluator.setRegister(upperRegister, upper);
+            evaluator.setRegister(rt, constant);
+            evaluator.retire(1);
+            return next;
+        };
+    }
+
+    private static CompiledInstruction loadAndSyscall(List<Operand> liOperands, DecodedInstruction syscall, int pc) {
+        int v0 = liOperands.getFirst().index();
+        int service = liOperands.get(1).immediate();
+        int syscallPc = pc + 1;
+
+        return evaluator -> {
+            evaluator.setRegister(v0, service);
+            evaluator.retire(1);
+            evaluator.setProgramCounter(syscallPc);
+            try {
+                syscall.handler().execute(syscall.operands(), evaluator);
+            } catch (MemoryAccessException e) {
+                // the syscall faulted, not the li the node is dispatched under
+                throw e.atInstruction(syscallPc);
+            }
+            return evaluator.getProgramCounter() + 1;
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package me.adversing.asm.program;
+
+import me.adversing.asm.Operand;
+import me.adversing.asm.diagnostic.DiagnosticService;
+import me.adversing.asm.instruction.Instruction;
+import me.adversing.asm.instruction.factory.InstructionFactory;
+import me.adversing.asm.instruction.handler.InstructionHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns the instruction list produced by the {@link me.adversing.asm.Parser} into a
+ * {@link DecodedProgram}, resolving every mnemonic to its handler exactly once and
+ * linking label operands to the instruction index they name.
+ */
+public class ProgramDecoder {
+    private final DiagnosticService diagnosticService;
+
+    public ProgramDecoder(DiagnosticService diagnosticService) {
+        this.diagnosticService = diagnosticService;
+    }
+
+    /**
+     * @param instructions the executable instructions, without label definitions
+     * @param labels       label name to the index of the instruction it precedes
+     */
+    public DecodedProgram decode(List<Instruction> instructions, Map<String, Integer> labels) {
+        InstructionFactory factory = InstructionFactory.getInstance();
+        DecodedInstruction[] decoded = new DecodedInstruction[instructions.size()];
+
+        for (int i = 0; i < decoded.length; i++) {
+            Instruction instruction = instructions.get(i);
+            InstructionHandler handler = factory.getInstructionHandler(instruction.name());
+            if (handler == null) {
+                diagnosticService.addError("Instruction not supported: " + instruction.name());
+            }
+            decoded[i] = new DecodedInstruction(handler, link(instruction.operands(), labels), instruction);
+        }
+
+        return new DecodedProgram(decoded, labels);
+    }
+
+    private List<Operand> link(List<Operand> operands, Map<String, Integer> labels) {
+        List<Operand> linked = new ArrayList<>(operands.size());
+        for (Operand operand : operands) {
+            Integer target = operand.is(Operand.Kind.SYMBOL) ? labels.get(operand.symbol()) : null;
+            linked.add(target != null ? operand.linkTo(target) : operand);
+        }
+        return List.copyOf(linked);
+    }
+}
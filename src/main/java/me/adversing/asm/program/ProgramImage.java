@@ -0,0 +1,284 @@
+package me.adversing.asm.program;
+
+import lombok.Getter;
+import me.adversing.asm.Operand;
+import me.adversing.asm.instruction.Instruction;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An assembled program: parsed instructions with their source lines, resolved labels, the
+ * laid-out data segment and the warnings the parser reported for it.
+ * <p>
+ * An image can be {@link #write written} to disk and {@link #map mapped} back without running
+ * the {@link me.adversing.asm.Parser}. The file is big-endian:
+ * <pre>
+ * header        int magic, short version, short reserved, byte[32] SHA-256 of the source
+ * strings       int count, then per string: int length, UTF-8 bytes
+ * instructions  int count, then per instruction: int name, int line, int operand count,
+ *               and per operand: byte kind, int index, int immediate, int value, int symbol
+ * labels        int count, then per label: int name, int target
+ * data          int count, then per variable: int name, int address;
+ *               then int count, and per chunk: int address, int length, the chunk bytes
+ * warnings      int count, then per warning: int message
+ * </pre>
+ * Names, operand text and symbols are indices into the string table, {@code -1} standing for
+ * {@code null}. The data segment chunks are used in place from the mapping; the zero gaps
+ * between them take no space in the file. Warnings are stored so that a mapped image reports
+ * the same diagnostics as parsing the source again.
+ */
+@Getter
+public final class ProgramImage {
+    private static final int MAGIC = 0x41344A49; // "A4JI"
+    // 2: string escapes decoded in the data segment, 3: parser warnings, 4: data segment chunks
+    private static final short VERSION = 4;
+    private static final int HASH_BYTES = 32;
+    private static final int NO_STRING = -1;
+
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfInt   INT   = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final List<Instruction> instructions;
+    private final Map<String, Integer> labels;
+    private final DataSegment data;
+    private final List<String> warnings;
+
+    public ProgramImage(List<Instruction> instructions, Map<String, Integer> labels, DataSegment data) {
+        this(instructions, labels, data, List.of());
+    }
+
+    public ProgramImage(List<Instruction> instructions, Map<String, Integer> labels, DataSegment data,
+                        List<String> warnings) {
+        this.instructions = List.copyOf(instructions);
+        this.labels = Collections.unmodifiableMap(labels);
+        this.data = data;
+        this.warnings = List.copyOf(warnings);
+    }
+
+    /**
+     * @return the SHA-256 digest images are keyed by
+     */
+    public static byte[] hash(byte[] source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // ------------------------------------------------
+    // Writing
+    // ------------------------------------------------
+
+    /**
+     * Writes the image for a source with digest {@code sourceHash}. The file is written next to
+     * {@code path} and moved into place, so a concurrent reader never maps a partial image.
+     */
+    public void write(Path path, byte[] sourceHash) throws IOException {
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIndex = new HashMap<>();
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+
+        out.writeInt(instructions.size());
+        for (Instruction instruction : instructions) {
+            out.writeInt(intern(instruction.name(), strings, stringIndex));
+            out.writeInt(instruction.line());
+            out.writeInt(instruction.operands().size());
+            for (Operand operand : instruction.operands()) {
+                out.writeByte(operand.kind().ordinal());
+                out.writeInt(operand.index());
+                out.writeInt(operand.immediate());
+                out.writeInt(intern(operand.value(), strings, stringIndex));
+                out.writeInt(intern(operand.symbol(), strings, stringIndex));
+            }
+        }
+
+        out.writeInt(labels.size());
+        for (Map.Entry<String, Integer> label : labels.entrySet()) {
+            out.writeInt(intern(label.getKey(), strings, stringIndex));
+            out.writeInt(label.getValue());
+        }
+
+        out.writeInt(data.addresses().size());
+        for (Map.Entry<String, Integer> variable : data.addresses().entrySet()) {
+            out.writeInt(intern(variable.getKey(), strings, stringIndex));
+            out.writeInt(variable.getValue());
+        }
+        out.writeInt(data.chunks().size());
+        for (DataSegment.Chunk chunk : data.chunks()) {
+            out.writeInt(chunk.address());
+            out.writeInt((int) chunk.bytes().byteSize());
+            out.write(chunk.bytes().toArray(ValueLayout.JAVA_BYTE));
+        }
+
+        out.writeInt(warnings.size());
+        for (String warning : warnings) {
+            out.writeInt(intern(warning, strings, stringIndex));
+        }
+
+        ByteArrayOutputStream image = new ByteArrayOutputStream(body.size() + 1024);
+        DataOutputStream header = new DataOutputStream(image);
+        header.writeInt(MAGIC);
+        header.writeShort(VERSION);
+        header.writeShort(0);
+        header.write(sourceHash);
+        header.writeInt(strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            header.writeInt(bytes.length);
+            header.write(bytes);
+        }
+        body.writeTo(image);
+
+        Path temporary = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, image.toByteArray());
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static int intern(@Nullable String string, List<String> strings, Map<String, Integer> stringIndex) {
+        if (string == null) {
+            return NO_STRING;
+        }
+        return stringIndex.computeIfAbsent(string, s -> {
+            strings.add(s);
+            return strings.size() - 1;
+        });
+    }
+
+    // ------------------------------------------------
+    // Mapping
+    // ------------------------------------------------
+
+    /**
+     * Maps the image at {@code path} and rebuilds the program from it.
+     *
+     * @return the image, or {@code null} if there is no image, it was built from a source with a
+     * different digest, or it is not a readable image of this version
+     */
+    public static @Nullable ProgramImage map(Path path, byte[] sourceHash) throws IOException {
+        MemorySegment image;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        try {
+            return new Reader(image).read(sourceHash);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            return null; // truncated or corrupt: treat it like a stale image
+        }
+    }
+
+    private static final class Reader {
+        private final MemorySegment image;
+        private long position;
+        private String[] strings;
+
+        Reader(MemorySegment image) {
+            this.image = image;
+        }
+
+        @Nullable ProgramImage read(byte[] sourceHash) {
+            if (readInt() != MAGIC || readShort() != VERSION) {
+                return null;
+            }
+            readShort();
+            if (image.asSlice(position, HASH_BYTES).mismatch(MemorySegment.ofArray(sourceHash)) != -1) {
+                return null;
+            }
+            position += HASH_BYTES;
+
+            strings = new String[readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = readInt();
+                strings[i] = new String(image.asSlice(position, length).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+                position += length;
+            }
+
+            Operand.Kind[] kinds = Operand.Kind.values();
+            Instruction[] instructions = new Instruction[readInt()];
+            for (int i = 0; i < instructions.length; i++) {
+                String name = readString();
+                int line = readInt();
+                Operand[] operands = new Operand[readInt()];
+                for (int j = 0; j < operands.length; j++) {
+                    Operand.Kind kind = kinds[image.get(ValueLayout.JAVA_BYTE, position++)];
+                    int index = readInt();
+                    int immediate = readInt();
+                    operands[j] = new Operand(readString(), kind, index, immediate, readString());
+                }
+                instructions[i] = new Instruction(name, List.of(operands), line);
+            }
+
+            Map<String, Integer> labels = new HashMap<>();
+            for (int count = readInt(); count > 0; count--) {
+                labels.put(readString(), readInt());
+            }
+
+            Map<String, Integer> addresses = new LinkedHashMap<>();
+            for (int count = readInt(); count > 0; count--) {
+                addresses.put(readString(), readInt());
+            }
+            DataSegment.Chunk[] chunks = new DataSegment.Chunk[readInt()];
+            for (int i = 0; i < chunks.length; i++) {
+                int address = readInt();
+                int length = readInt();
+                chunks[i] = new DataSegment.Chunk(address, image.asSlice(position, length));
+                position += length;
+            }
+
+            String[] warnings = new String[readInt()];
+            for (int i = 0; i < warnings.length; i++) {
+                warnings[i] = readString();
+            }
+
+            return new ProgramImage(List.of(instructions), labels, new DataSegment(List.of(chunks), addresses), List.of(warnings));
+        }
+
+        private int readInt() {
+            int value = image.get(INT, position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        private short readShort() {
+            short value = image.get(SHORT, position);
+            position += Short.BYTES;
+            return value;
+        }
+
+        private @Nullable String readString() {
+            int index = readInt();
+            return index == NO_STRING ? null : strings[index];
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package me.adversing.asm.program;
+
+import me.adversing.asm.Parser;
+import me.adversing.asm.diagnostic.DiagnosticService;
+import me.adversing.asm.diagnostic.exception.InvalidProgramStructureException;
+import me.adversing.asm.instruction.Instruction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Loads an {@code .asm} file as a {@link ProgramImage}, reusing a cached image when possible.
+ * <p>
+ * The image is cached next to the source as {@code <name>.asmc} and keyed by the SHA-256 of the
+ * source, so any edit to the file invalidates it. On a hit the program is mapped instead of parsed,
+ * and the parser warnings stored in the image are reported again. On a miss the file is parsed
+ * and, if the parser reported no errors, the image is written for the next run. Programs with
+ * parse errors are never cached, so their diagnostics are reported on every run. Either way a
+ * run reports the same diagnostics whether or not the image was cached.
+ */
+public class ProgramLoader {
+    public static final String IMAGE_EXTENSION = ".asmc";
+
+    private final DiagnosticService diagnosticService;
+    private final boolean useCache;
+
+    public ProgramLoader(DiagnosticService diagnosticService, boolean useCache) {
+        this.diagnosticService = diagnosticService;
+        this.useCache = useCache;
+    }
+
+    public ProgramImage load(File file) throws InvalidProgramStructureException, IOException {
+        if (!file.getName().endsWith(".asm")) {
+            throw new InvalidProgramStructureException("File must have .asm extension.");
+        }
+
+        byte[] source = Files.readAllBytes(file.toPath());
+        if (source.length == 0) {
+            throw new InvalidProgramStructureException("File is empty or unreadable.");
+        }
+
+        byte[] hash = ProgramImage.hash(source);
+        Path imagePath = imagePath(file);
+        if (useCache) {
+            ProgramImage cached = ProgramImage.map(imagePath, hash);
+            if (cached != null) {
+                cached.getWarnings().forEach(diagnosticService::addWarning);
+                return cached;
+            }
+        }
+
+        int earlierWarnings = diagnosticService.getWarnings().size();
+        Parser parser = new Parser(diagnosticService);
+        List<Instruction> instructions = parser.parse(StandardCharsets.UTF_8.decode(ByteBuffer.wrap(source)));
+        List<String> warnings = diagnosticService.getWarnings();
+        ProgramImage image = new ProgramImage(instructions, parser.getLabels(),
+                DataSegment.layout(parser.getVariables().values()),
+                warnings.subList(earlierWarnings, warnings.size()));
+
+        if (useCache && !diagnosticService.hasErrors()) {
+            try {
+                image.write(imagePath, hash);
+            } catch (IOException e) {
+                // the cache is only an optimization, e.g. the source directory may be read-only
+                diagnosticService.addWarning("Could not cache program image: " + e.getMessage());
+            }
+        }
+        return image;
+    }
+
+    public static Path imagePath(File file) {
+        String name = file.getName();
+        return file.toPath().resolveSibling(name.substring(0, name.length() - ".asm".length()) + IMAGE_EXTENSION);
+    }
+}
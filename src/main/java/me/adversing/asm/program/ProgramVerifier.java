@@ -0,0 +1,37 @@
+package me.adversing.asm.program;
+
+import me.adversing.asm.diagnostic.DiagnosticService;
+
+/**
+ * Runs every handler's {@code checkOperands} exactly once over a {@link DecodedProgram}.
+ * <p>
+ * A program that passes verification is executed on the trusted path: handlers do not
+ * re-validate their operands on each step, so any problem has to be reported here,
+ * before execution starts.
+ */
+public class ProgramVerifier {
+    private final DiagnosticService diagnosticService;
+
+    public ProgramVerifier(DiagnosticService diagnosticService) {
+        this.diagnosticService = diagnosticService;
+    }
+
+    /**
+     * @return {@code true} if every instruction is supported and accepted its operands
+     */
+    public boolean verify(DecodedProgram program) {
+        boolean valid = true;
+        for (int i = 0; i < program.size(); i++) {
+            DecodedInstruction instruction = program.get(i);
+            if (!instruction.isSupported()) {
+                valid = false; // already reported by the decoder
+                continue;
+            }
+
+            if (!instruction.handler().checkOperands(instruction.operands(), diagnosticService)) {
+                valid = false;
+            }
+        }
+        return valid;
+    }
+}
@@ -2,8 +2,25 @@ package me.adversing.asm.variable;
 
 import lombok.Getter;
 import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A data declaration such as {@code table: .word 1, 2, 3}.
+ *
+ * @param values    the declared values in order: decoded text for {@code .ascii}/{@code .asciiz},
+ *                  the literal otherwise
+ * @param alignment the address alignment in bytes; the directive's natural alignment unless
+ *                  a preceding {@code .align} overrides it
+ */
+public record Variable(String name, Type type, List<String> values, int alignment) {
+    public Variable {
+        values = List.copyOf(values);
+    }
+
+    public Variable(String name, Type type, List<String> values) {
+        this(name, type, values, type.getAlignment());
+    }
 
-public record Variable(String name, Type type, String value) {
     public static boolean isValidType(String type) {
         return Arrays.stream(Type.values())
                 .anyMatch(t -> t.type.equalsIgnoreCase(type));
@@ -13,21 +30,28 @@ public record Variable(String name, Type type, String value) {
         return type == this.type;
     }
 
+    public Variable withAlignment(int alignment) {
+        return new Variable(name, type, values, alignment);
+    }
+
     @Getter
     public enum Type {
-        WORD(".word"),
-        BYTE(".byte"),
-        HALF(".half"),
-        FLOAT(".float"),
-        DOUBLE(".double"),
-        ASCII(".ascii"),
-        ASCIIZ(".asciiz"),
-        SPACE(".space");
+        WORD(".word", 4),
+        BYTE(".byte", 1),
+        HALF(".half", 2),
+        FLOAT(".float", 4),
+        DOUBLE(".double", 8),
+        ASCII(".ascii", 1),
+        ASCIIZ(".asciiz", 1),
+        SPACE(".space", 1);
 
         private final String type;
+        // natural alignment of the directive's data, in bytes
+        private final int alignment;
 
-        Type(String type) {
+        Type(String type, int alignment) {
             this.type = type;
+            this.alignment = alignment;
         }
 
         public static Type fromString(String type) {
@@ -0,0 +1,163 @@
+package me.adversing.asm.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Generates {@code me.adversing.asm.instruction.factory.InstructionRegistry} from the handlers
+ * annotated with {@code @Mnemonic}.
+ * <p>
+ * The registry is a string switch from mnemonic to handler constructor, so looking up a handler
+ * loads and instantiates only that handler's class. Misplaced annotations and duplicate
+ * mnemonics are reported as compile errors.
+ * <p>
+ * The processor only depends on the annotation and handler types by name, so it can be compiled
+ * before the sources it processes.
+ */
+@SupportedAnnotationTypes(MnemonicProcessor.MNEMONIC)
+public final class MnemonicProcessor extends AbstractProcessor {
+    static final String MNEMONIC = "me.adversing.asm.instruction.handler.Mnemonic";
+    private static final String HANDLER = "me.adversing.asm.instruction.handler.InstructionHandler";
+    private static final String REGISTRY_PACKAGE = "me.adversing.asm.instruction.factory";
+    private static final String REGISTRY_NAME = "InstructionRegistry";
+
+    private final Map<String, TypeElement> handlers = new TreeMap<>(); // mnemonic to handler class
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement mnemonic = processingEnv.getElementUtils().getTypeElement(MNEMONIC);
+        if (mnemonic == null || annotations.isEmpty()) {
+            return false;
+        }
+
+        boolean valid = true;
+        for (Element element : roundEnv.getElementsAnnotatedWith(mnemonic)) {
+            valid &= register(element, mnemonic);
+        }
+
+        if (valid && !generated && !handlers.isEmpty()) {
+            writeRegistry();
+            generated = true;
+        }
+        return true;
+    }
+
+    private boolean register(Element element, TypeElement mnemonic) {
+        if (element.getKind() != ElementKind.CLASS
+                || element.getModifiers().contains(Modifier.ABSTRACT)
+                || !element.getModifiers().contains(Modifier.PUBLIC)) {
+            return error(element, "@Mnemonic handlers must be public concrete classes");
+        }
+
+        TypeElement handler = (TypeElement) element;
+        TypeElement handlerInterface = processingEnv.getElementUtils().getTypeElement(HANDLER);
+        if (!processingEnv.getTypeUtils().isAssignable(handler.asType(), handlerInterface.asType())) {
+            return error(element, "@Mnemonic handlers must implement " + HANDLER);
+        }
+        if (!hasPublicNoArgConstructor(handler)) {
+            return error(element, "@Mnemonic handlers must have a public no-argument constructor");
+        }
+
+        String name = mnemonicOf(handler, mnemonic);
+        TypeElement previous = handlers.putIfAbsent(name, handler);
+        if (previous != null && !previous.equals(handler)) {
+            return error(element, "Mnemonic \"" + name + "\" is already implemented by " + previous.getQualifiedName());
+        }
+        return true;
+    }
+
+    private static boolean hasPublicNoArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String mnemonicOf(TypeElement handler, TypeElement mnemonic) {
+        for (AnnotationMirror annotation : handler.getAnnotationMirrors()) {
+            if (annotation.getAnnotationType().asElement().equals(mnemonic)) {
+                return (String) annotation.getElementValues().values().iterator().next().getValue();
+            }
+        }
+        throw new IllegalStateException("No @Mnemonic on " + handler);
+    }
+
+    private boolean error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+
+    private void writeRegistry() {
+        List<Element> originating = new ArrayList<>(handlers.values());
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler()
+                .createSourceFile(REGISTRY_PACKAGE + "." + REGISTRY_NAME, originating.toArray(Element[]::new))
+                .openWriter())) {
+            out.println("package " + REGISTRY_PACKAGE + ";");
+            out.println();
+            out.println("import me.adversing.asm.instruction.handler.InstructionHandler;");
+            out.println();
+            out.println("import java.util.Set;");
+            out.println();
+            out.println("/**");
+            out.println(" * Mnemonic to handler table, generated by {@code " + getClass().getName() + "}.");
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("public final class " + REGISTRY_NAME + " {");
+            out.println("    private static final Set<String> MNEMONICS = Set.of(");
+            int remaining = handlers.size();
+            for (String name : handlers.keySet()) {
+                out.println("            \"" + name + "\"" + (--remaining > 0 ? "," : ""));
+            }
+            out.println("    );");
+            out.println();
+            out.println("    private " + REGISTRY_NAME + "() {");
+            out.println("    }");
+            out.println();
+            out.println("    public static Set<String> mnemonics() {");
+            out.println("        return MNEMONICS;");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * @return a new handler for {@code mnemonic}, or {@code null} if no handler implements it");
+            out.println("     */");
+            out.println("    public static InstructionHandler create(String mnemonic) {");
+            out.println("        return switch (mnemonic) {");
+            for (Map.Entry<String, TypeElement> handler : handlers.entrySet()) {
+                out.println("            case \"" + handler.getKey() + "\" -> new "
+                        + handler.getValue().getQualifiedName() + "();");
+            }
+            out.println("            default -> null;");
+            out.println("        };");
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + REGISTRY_NAME + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package me.adversing.asm.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A batch directory pairs each program with its own input files, matched by name literally.
+ */
+class BatchJobTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void inputsBelongToTheProgramWithTheLongestMatchingName() throws Throwable {
+        touch("sort.asm", "sort.in", "sort.a.in", "sort.v2.asm", "sort.v2.in", "sort.v2.b.in",
+                "sort.v2.c.d.in", "sorter.in", "lone.asm", "notes.txt");
+
+        assertEquals(List.of(
+                "lone.asm <empty>",
+                "sort.asm sort.a.in",
+                "sort.asm sort.in",
+                "sort.v2.asm sort.v2.b.in",
+                "sort.v2.asm sort.v2.c.d.in",
+                "sort.v2.asm sort.v2.in"), jobs());
+    }
+
+    @Test
+    void globCharactersInNamesAreMatchedLiterally() throws Throwable {
+        touch("a{b,c}*.asm", "a{b,c}*.in", "a{b,c}*.x.in", "ab.in", "a{b,c}.in", "[x].asm", "[x].in", "x.in");
+
+        assertEquals(List.of(
+                "[x].asm [x].in",
+                "a{b,c}*.asm a{b,c}*.in",
+                "a{b,c}*.asm a{b,c}*.x.in"), jobs());
+    }
+
+    private void touch(String... names) throws Exception {
+        for (String name : names) {
+            Files.createFile(directory.resolve(name));
+        }
+    }
+
+    private List<String> jobs() throws Exception {
+        return BatchJob.list(directory).stream()
+                .map(job -> job.program().getFileName() + " "
+                        + (job.input() != null ? job.input().getFileName() : "<empty>"))
+                .toList();
+    }
+}
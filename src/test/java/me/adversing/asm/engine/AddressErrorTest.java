@@ -0,0 +1,124 @@
+package me.adversing.asm.engine;
+
+import me.adversing.asm.diagnostic.DiagnosticService;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * An address error must look the same whichever {@link ExecutionMode} ran the program: same
+ * diagnostic, same CP0 state, same registers and the same number of retired instructions.
+ * The loops run past {@link me.adversing.asm.jit.TieredCompiler#HOT_THRESHOLD} iterations
+ * before they fault, so on the tiered path the fault happens inside a compiled block.
+ */
+class AddressErrorTest {
+
+    // $t5 becomes misaligned on iteration 1500: the sw at instruction 7 (line 13) faults
+    private static final String HOT_LOOP_STORE = """
+            .data
+                buf: .word 0, 0
+            .text
+            main:
+                li $t0, 0
+                la $t2, buf
+                li $t6, 5000
+            loop:
+                addiu $t0, $t0, 1
+                sltiu $t3, $t0, 1500
+                xori $t4, $t3, 1
+                addu $t5, $t2, $t4
+                sw $t0, 0($t5)
+                addu $s0, $s0, $t0
+                bne $t0, $t6, loop
+                li $v0, 10
+                syscall
+            """;
+
+    // the sw stays aligned; the lw after it (instruction 8, line 14) faults on iteration 1200
+    private static final String HOT_LOOP_LOAD = """
+            .data
+                buf: .word 0, 0
+            .text
+            main:
+                li $t0, 0
+                la $t2, buf
+                li $t6, 5000
+            loop:
+                addiu $t0, $t0, 1
+                sltiu $t3, $t0, 1200
+                xori $t4, $t3, 1
+                addu $t5, $t2, $t4
+                sw $t0, 0($t2)
+                lw $t7, 0($t5)
+                addu $s0, $s0, $t7
+                bne $t0, $t6, loop
+                li $v0, 10
+                syscall
+            """;
+
+    // li $v0, 63 + syscall are fused on the threaded paths; strlen faults at the syscall (instruction 2, line 7)
+    private static final String FUSED_SYSCALL = """
+            .data
+                buf: .word 0
+            .text
+            main:
+                li $a0, 0x80000004
+                li $v0, 63
+                syscall
+                li $v0, 10
+                syscall
+            """;
+
+    static Stream<Arguments> programs() {
+        return Stream.of(
+                Arguments.of("store in a hot loop", HOT_LOOP_STORE, 7, 13),
+                Arguments.of("load in a hot loop", HOT_LOOP_LOAD, 8, 14),
+                Arguments.of("fused syscall", FUSED_SYSCALL, 2, 7)
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("programs")
+    void faultIsReportedTheSameInEveryMode(String name, String source, int instruction, int line) throws Throwable {
+        Machine machine = Machine.assemble(source);
+        Outcome expected = run(machine, ExecutionMode.INTERPRETED);
+
+        assertEquals(1, expected.errors().size(), expected.errors().toString());
+        assertTrue(expected.errors().getFirst().endsWith("(instruction " + instruction + ", line " + line + ")"),
+                expected.errors().getFirst());
+        assertEquals(instruction, expected.epc());
+
+        for (ExecutionMode mode : List.of(ExecutionMode.THREADED, ExecutionMode.TIERED)) {
+            assertEquals(expected, run(machine, mode), mode.name());
+        }
+    }
+
+    private static Outcome run(Machine machine, ExecutionMode mode) {
+        try (ASMEvaluator evaluator = new ASMEvaluator(new DiagnosticService())) {
+            RunResult result = machine.withExecutionMode(mode).run(evaluator, RunLimits.NONE);
+            assertEquals(RunResult.Status.ERROR, result.status(), mode.name());
+
+            List<Integer> registers = new ArrayList<>();
+            for (int register = 0; register < Registers.INT_REGISTER_COUNT; register++) {
+                registers.add(evaluator.getRegister(register));
+            }
+            return new Outcome(result.errors(),
+                    evaluator.getCp0Register(Registers.EPC),
+                    evaluator.getCp0Register(Registers.BAD_VADDR),
+                    evaluator.getCp0Register(Registers.CAUSE),
+                    registers,
+                    result.retiredInstructions());
+        }
+    }
+
+    private record Outcome(List<String> errors, int epc, int badVAddr, int cause, List<Integer> registers,
+                           long retiredInstructions) {
+    }
+}
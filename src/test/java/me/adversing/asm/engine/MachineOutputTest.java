@@ -0,0 +1,62 @@
+package me.adversing.asm.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * An embedded run reads and writes only the streams it is given.
+ */
+class MachineOutputTest {
+
+    private static final String ECHO = """
+            .data
+                buffer: .space 16
+            .text
+            main:
+                li $v0, 5
+                syscall
+                move $a0, $v0
+                li $v0, 1
+                syscall
+                li $v0, 10
+                syscall
+            """;
+
+    @Test
+    void runNeverTouchesStandardOutput() throws Throwable {
+        Machine machine = Machine.assemble(ECHO);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        // the first evaluator in the JVM starts log4j, whose console appenders flush System.out once
+        machine.run(RunLimits.NONE);
+
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                fail("wrote to System.out");
+            }
+
+            @Override
+            public void flush() {
+                fail("flushed System.out");
+            }
+        }));
+        RunResult result;
+        try {
+            result = machine.run(RunLimits.NONE, new StringReader("42\n"), output);
+        } finally {
+            System.setOut(stdout);
+        }
+
+        assertEquals(RunResult.Status.OK, result.status(), result.errors().toString());
+        assertEquals("42", output.toString(StandardCharsets.US_ASCII));
+    }
+}
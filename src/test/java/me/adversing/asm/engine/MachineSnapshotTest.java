@@ -0,0 +1,72 @@
+package me.adversing.asm.engine;
+
+import me.adversing.asm.Parser;
+import me.adversing.asm.diagnostic.DiagnosticService;
+import me.adversing.asm.instruction.Instruction;
+import me.adversing.asm.program.DataSegment;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs start from the machine's loaded state, whatever earlier runs wrote.
+ */
+class MachineSnapshotTest {
+
+    // increments a data word and prints it, so a run that sees an earlier run's memory prints more than 1
+    private static final String COUNTER = """
+            .data
+                counter: .word 0
+            .text
+            main:
+                lw $t0, counter
+                addiu $t0, $t0, 1
+                sw $t0, counter
+                move $a0, $t0
+                li $v0, 1
+                syscall
+                li $v0, 10
+                syscall
+            """;
+
+    @Test
+    void reusedEvaluatorStartsFromTheLoadedState() throws Throwable {
+        Machine machine = Machine.assemble(COUNTER);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        SyscallContext context = new SyscallContext(Reader.nullReader(), new ProgramOutput(output, false));
+
+        try (ASMEvaluator evaluator = new ASMEvaluator(new DiagnosticService(), context)) {
+            for (int run = 0; run < 3; run++) {
+                assertEquals(RunResult.Status.OK, machine.run(evaluator, RunLimits.NONE).status());
+            }
+        }
+        assertEquals("111", output.toString(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void forksWriteTheirOwnCopyOfMemory() throws Throwable {
+        DiagnosticService diagnosticService = new DiagnosticService();
+        Parser parser = new Parser(diagnosticService);
+        List<Instruction> instructions = parser.parse(COUNTER);
+
+        MachineSnapshot snapshot;
+        try (ASMEvaluator evaluator = new ASMEvaluator(diagnosticService, SyscallContext.discard())) {
+            evaluator.installDataSegment(DataSegment.layout(parser.getVariables().values()));
+            snapshot = evaluator.snapshot();
+        }
+
+        for (int fork = 0; fork < 2; fork++) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            SyscallContext context = new SyscallContext(Reader.nullReader(), new ProgramOutput(output, false));
+            try (ASMEvaluator evaluator = snapshot.fork(new DiagnosticService(), context, false)) {
+                evaluator.evaluate(instructions, parser.getLabels());
+            }
+            assertEquals("1", output.toString(StandardCharsets.US_ASCII));
+        }
+    }
+}
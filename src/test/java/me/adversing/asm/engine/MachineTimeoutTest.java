@@ -0,0 +1,74 @@
+package me.adversing.asm.engine;
+
+import me.adversing.asm.Parser;
+import me.adversing.asm.diagnostic.DiagnosticService;
+import me.adversing.asm.instruction.Instruction;
+import me.adversing.asm.program.DataSegment;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A run is reported as {@link RunResult.Status#TIMEOUT} only if the evaluator was actually
+ * halted, not when the time limit expires after the program has already ended.
+ */
+class MachineTimeoutTest {
+
+    private static final String SPIN = """
+            .data
+                unused: .word 0
+            .text
+            main:
+                addiu $t0, $t0, 1
+                j main
+            """;
+
+    private static final String EXIT = """
+            .data
+                unused: .word 0
+            .text
+            main:
+                li $v0, 10
+                syscall
+            """;
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void spinningProgramTimesOut(ExecutionMode mode) throws Throwable {
+        RunResult result = Machine.assemble(SPIN).withExecutionMode(mode).run(RunLimits.NONE.withTimeout(50));
+
+        assertEquals(RunResult.Status.TIMEOUT, result.status(), result.errors().toString());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void programThatEndsBeforeSeeingTheHaltWasNotHalted(ExecutionMode mode) throws Throwable {
+        // the halt is requested before the program reaches its first safepoint, as when the
+        // timer fires just as the program ends
+        assertFalse(runWithHaltRequested(EXIT, mode));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void programThatSeesTheHaltWasHalted(ExecutionMode mode) throws Throwable {
+        assertTrue(runWithHaltRequested(SPIN, mode));
+    }
+
+    private static boolean runWithHaltRequested(String source, ExecutionMode mode) throws Throwable {
+        DiagnosticService diagnosticService = new DiagnosticService();
+        Parser parser = new Parser(diagnosticService);
+        List<Instruction> instructions = parser.parse(source);
+        try (ASMEvaluator evaluator = new ASMEvaluator(diagnosticService)) {
+            evaluator.setExecutionMode(mode);
+            evaluator.installDataSegment(DataSegment.layout(parser.getVariables().values()));
+            evaluator.requestHalt();
+            evaluator.evaluate(instructions, parser.getLabels());
+            return evaluator.isHalted();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package me.adversing.asm.engine;
+
+import com.sun.management.ThreadMXBean;
+import me.adversing.asm.diagnostic.DiagnosticService;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Print loops must not allocate per iteration: running one ten times longer may only cost a
+ * small, constant amount of extra allocation. One loop goes through jal, lw, la, ll and sc and
+ * prints an integer, a character and a string; the other prints a float and a double.
+ */
+class PrintAllocationTest {
+    private static final int SHORT_RUN = 20_000;
+    private static final int LONG_RUN = 200_000;
+    private static final long MAX_EXTRA_BYTES = 64 << 10;
+
+    private static final String LOOP = """
+            .data
+                count: .word %d
+                cell: .word 0
+                msg: .asciiz "x\\n"
+            .text
+            main:
+                li $s0, 0
+                lw $s1, count
+            loop:
+                la $t0, cell
+                ll $t1, 0($t0)
+                addi $t1, $t1, 1
+                sc $t1, 0($t0)
+                lw $t2, 0($t0)
+                jal print
+                addi $s0, $s0, 1
+                bne $s0, $s1, loop
+                li $v0, 10
+                syscall
+            print:
+                li $v0, 1
+                move $a0, $t2
+                syscall
+                li $v0, 11
+                li $a0, 10
+                syscall
+                li $v0, 4
+                la $a0, msg
+                syscall
+                jr $ra
+            """;
+
+    private static final String FLOATING_LOOP = """
+            .data
+                count: .word %d
+                step: .float 0.1
+                doubleStep: .double 0.37
+            .text
+            main:
+                li $s0, 0
+                lw $s1, count
+                lwc1 $f2, step
+                ldc1 $f8, doubleStep
+            loop:
+                add.s $f4, $f4, $f2
+                mov.s $f12, $f4
+                li $v0, 2
+                syscall
+                add.d $f6, $f6, $f8
+                mov.d $f12, $f6
+                li $v0, 3
+                syscall
+                addi $s0, $s0, 1
+                bne $s0, $s1, loop
+                li $v0, 10
+                syscall
+            """;
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void printLoopDoesNotAllocatePerIteration(ExecutionMode mode) throws Throwable {
+        assertNoAllocationPerIteration(LOOP, mode);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void floatingPointPrintLoopDoesNotAllocatePerIteration(ExecutionMode mode) throws Throwable {
+        assertNoAllocationPerIteration(FLOATING_LOOP, mode);
+    }
+
+    private static void assertNoAllocationPerIteration(String loop, ExecutionMode mode) throws Throwable {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Machine shortRun = Machine.assemble(loop.formatted(SHORT_RUN)).withExecutionMode(mode);
+        Machine longRun = Machine.assemble(loop.formatted(LONG_RUN)).withExecutionMode(mode);
+
+        SyscallContext context = new SyscallContext(Reader.nullReader(),
+                new ProgramOutput(OutputStream.nullOutputStream(), false));
+        try (ASMEvaluator evaluator = new ASMEvaluator(new DiagnosticService(), context)) {
+            // let the JVM compile the handlers and the tiered blocks before measuring
+            for (int i = 0; i < 3; i++) {
+                run(shortRun, evaluator);
+                run(longRun, evaluator);
+            }
+
+            long shortBytes = allocatedBytes(threads, () -> run(shortRun, evaluator));
+            long longBytes = allocatedBytes(threads, () -> run(longRun, evaluator));
+            assertTrue(longBytes - shortBytes < MAX_EXTRA_BYTES,
+                    mode + ": " + SHORT_RUN + " iterations allocated " + shortBytes + " bytes, "
+                    + LONG_RUN + " iterations allocated " + longBytes + " bytes");
+        }
+    }
+
+    private static void run(Machine machine, ASMEvaluator evaluator) {
+        RunResult result = machine.run(evaluator, RunLimits.NONE);
+        assertEquals(RunResult.Status.OK, result.status(), result.errors().toString());
+    }
+
+    private static long allocatedBytes(ThreadMXBean threads, Runnable task) {
+        long thread = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        task.run();
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+}
@@ -0,0 +1,80 @@
+package me.adversing.asm.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link ShortestDecimal} must print exactly what {@link Float#toString(float)} and
+ * {@link Double#toString(double)} print.
+ */
+class ShortestDecimalTest {
+    private static final double[] DOUBLES = {
+            0.0, -0.0, 1.0, -1.0, 0.1, 0.2, 0.3, 1.0 / 3, 2.0 / 3, 100.0, 1e7, 9_999_999.0, 9_999_999.5,
+            1e-3, 9.99e-4, 1e-4, 1e23, 2e23, 8.41e21, 5e-324, 1e-323, 2.2250738585072014E-308,
+            4.9e-324, Double.MIN_NORMAL, Double.MAX_VALUE, -Double.MAX_VALUE, Math.PI, Math.E,
+            1.0E-5, 123456789.0, 0.001, 1234567.125, Double.NaN, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, Math.ulp(1.0), 1 + Math.ulp(1.0), 9007199254740993.0,
+    };
+
+    private static final float[] FLOATS = {
+            0f, -0f, 1f, -1f, 0.1f, 0.2f, 0.3f, 1f / 3, 100f, 1e7f, 9_999_999f, 1e-3f, 9.99e-4f,
+            1.0E-5f, Float.MIN_VALUE, 2 * Float.MIN_VALUE, Float.MIN_NORMAL, Float.MAX_VALUE,
+            -Float.MAX_VALUE, (float) Math.PI, 2.5f, 16777216f, 16777217f, 1.17549435E-38f,
+            Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, 8.0E-45f, 1.4E-45f,
+    };
+
+    private final byte[] buffer = new byte[ShortestDecimal.MAX_LENGTH];
+
+    @Test
+    void doublesMatchDoubleToString() {
+        for (double value : DOUBLES) {
+            assertDouble(value);
+        }
+        for (long exponent = 0; exponent <= 0x7FF; exponent++) {
+            assertDouble(Double.longBitsToDouble(exponent << 52));
+            assertDouble(Double.longBitsToDouble(exponent << 52 | 1));
+            assertDouble(Double.longBitsToDouble(exponent << 52 | (1L << 52) - 1));
+        }
+        SplittableRandom random = new SplittableRandom(0x5EED);
+        for (int i = 0; i < 1_000_000; i++) {
+            assertDouble(Double.longBitsToDouble(random.nextLong()));
+        }
+        for (int i = 0; i < 200_000; i++) {
+            // short decimals, which stress picking the closest of several short candidates
+            assertDouble(random.nextInt(1_000_000) / Math.pow(10, random.nextInt(-20, 20)));
+        }
+    }
+
+    @Test
+    void floatsMatchFloatToString() {
+        for (float value : FLOATS) {
+            assertFloat(value);
+        }
+        // every 257th bit pattern covers all exponents and a spread of significands
+        for (long bits = 0; bits <= 0xFFFF_FFFFL; bits += 257) {
+            assertFloat(Float.intBitsToFloat((int) bits));
+        }
+    }
+
+    private void assertDouble(double value) {
+        int length = ShortestDecimal.write(value, buffer, 0);
+        String expected = Double.toString(value);
+        if (!expected.equals(new String(buffer, 0, length, StandardCharsets.US_ASCII))) {
+            assertEquals(expected, new String(buffer, 0, length, StandardCharsets.US_ASCII),
+                    "bits " + Long.toHexString(Double.doubleToRawLongBits(value)));
+        }
+    }
+
+    private void assertFloat(float value) {
+        int length = ShortestDecimal.write(value, buffer, 0);
+        String expected = Float.toString(value);
+        if (!expected.equals(new String(buffer, 0, length, StandardCharsets.US_ASCII))) {
+            assertEquals(expected, new String(buffer, 0, length, StandardCharsets.US_ASCII),
+                    "bits " + Integer.toHexString(Float.floatToRawIntBits(value)));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package me.adversing.asm.program;
+
+import me.adversing.asm.Parser;
+import me.adversing.asm.diagnostic.DiagnosticService;
+import me.adversing.asm.instruction.Instruction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A mapped image must rebuild the program it was written from, diagnostics included, and
+ * reserved space must not take room in it.
+ */
+class ProgramImageTest {
+
+    private static final String SOURCE = """
+            .data
+                value: .word 7
+                text: .asciiz "hi\\n"
+            .text
+            main:
+                lw $a0, value
+                li $v0, 1
+                syscall
+                li $v0, 10
+                syscall
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mappedImageMatchesTheWrittenOne() throws Throwable {
+        byte[] hash = ProgramImage.hash(SOURCE.getBytes(StandardCharsets.UTF_8));
+        Parser parser = new Parser(new DiagnosticService());
+        List<Instruction> instructions = parser.parse(SOURCE);
+        ProgramImage written = new ProgramImage(instructions, parser.getLabels(),
+                DataSegment.layout(parser.getVariables().values()), List.of("first warning", "second warning"));
+
+        Path path = directory.resolve("program" + ProgramLoader.IMAGE_EXTENSION);
+        written.write(path, hash);
+        ProgramImage mapped = ProgramImage.map(path, hash);
+
+        assertNotNull(mapped);
+        assertEquals(written.getInstructions(), mapped.getInstructions());
+        assertEquals(written.getLabels(), mapped.getLabels());
+        assertEquals(written.getData().addresses(), mapped.getData().addresses());
+        assertChunksEqual(written.getData(), mapped.getData());
+        assertEquals(written.getWarnings(), mapped.getWarnings());
+    }
+
+    @Test
+    void reservedSpaceIsNeitherMaterializedNorStored() throws Throwable {
+        String source = """
+                .data
+                    flag: .word 1
+                    buffer: .space 67108864
+                    text: .asciiz "after"
+                .text
+                main:
+                    li $v0, 10
+                    syscall
+                """;
+        byte[] hash = ProgramImage.hash(source.getBytes(StandardCharsets.UTF_8));
+        Parser parser = new Parser(new DiagnosticService());
+        List<Instruction> instructions = parser.parse(source);
+        DataSegment data = DataSegment.layout(parser.getVariables().values());
+
+        assertEquals(2, data.chunks().size());
+        assertEquals(data.addresses().get("flag"), data.chunks().get(0).address());
+        assertArrayEquals(new byte[]{0, 0, 0, 1}, data.chunks().get(0).bytes().toArray(ValueLayout.JAVA_BYTE));
+        assertEquals(data.addresses().get("text"), data.chunks().get(1).address());
+        assertArrayEquals("after\0".getBytes(StandardCharsets.US_ASCII),
+                data.chunks().get(1).bytes().toArray(ValueLayout.JAVA_BYTE));
+
+        Path path = directory.resolve("sparse" + ProgramLoader.IMAGE_EXTENSION);
+        new ProgramImage(instructions, parser.getLabels(), data).write(path, hash);
+        assertTrue(Files.size(path) < 1024, "image of " + Files.size(path) + " bytes");
+        ProgramImage mapped = ProgramImage.map(path, hash);
+        assertNotNull(mapped);
+        assertChunksEqual(data, mapped.getData());
+    }
+
+    @Test
+    void imageOfAnotherSourceIsNotMapped() throws Throwable {
+        Parser parser = new Parser(new DiagnosticService());
+        List<Instruction> instructions = parser.parse(SOURCE);
+        ProgramImage written = new ProgramImage(instructions, parser.getLabels(),
+                DataSegment.layout(parser.getVariables().values()));
+
+        Path path = directory.resolve("program" + ProgramLoader.IMAGE_EXTENSION);
+        written.write(path, ProgramImage.hash(SOURCE.getBytes(StandardCharsets.UTF_8)));
+
+        assertNull(ProgramImage.map(path, ProgramImage.hash("edited".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static void assertChunksEqual(DataSegment expected, DataSegment actual) {
+        assertEquals(expected.chunks().size(), actual.chunks().size());
+        for (int i = 0; i < expected.chunks().size(); i++) {
+            assertEquals(expected.chunks().get(i).address(), actual.chunks().get(i).address());
+            assertArrayEquals(expected.chunks().get(i).bytes().toArray(ValueLayout.JAVA_BYTE),
+                    actual.chunks().get(i).bytes().toArray(ValueLayout.JAVA_BYTE));
+        }
+    }
+}